@@ -0,0 +1,136 @@
+package be.oreel.masi.shoppinglist.adapter;
+
+import android.content.Context;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.ContextThemeWrapper;
+import android.widget.LinearLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import be.oreel.masi.shoppinglist.R;
+import be.oreel.masi.shoppinglist.model.Article;
+import be.oreel.masi.shoppinglist.model.ArticlePriorities;
+import be.oreel.masi.shoppinglist.model.ToolbarMode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures the allocations of binding the rows of the article list, as done while scrolling
+ * Once the rows are warmed up (e.g. the amount texts formatted), a bind allocates nothing
+ */
+@RunWith(AndroidJUnit4.class)
+public class ArticleAdapterBindTest {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    // The number of articles of the list, a few screens
+    private static final int ARTICLE_COUNT = 100;
+    // The number of measured binds
+    private static final int BIND_COUNT = 10000;
+
+    private ArticleAdapter adapter;
+    private ArticleAdapter.ViewHolder holder;
+    private final ArticleManager articleManager = new ArticleManager() {
+        @Override
+        public ToolbarMode getToolbarMode() {
+            return ToolbarMode.NORMAL;
+        }
+
+        @Override
+        public void setToolbarMode(ToolbarMode mode) {}
+
+        @Override
+        public void updateArticle(Article article) {}
+
+        @Override
+        public void updatePriorities(List<Article> articles) {}
+
+        @Override
+        public void toggleStrikethrough(List<Article> articles) {}
+    };
+
+    // =============
+    // === SETUP ===
+    // =============
+
+    /**
+     * Shows a list of articles in the adapter and creates a row to bind them to
+     * @throws InterruptedException If interrupted while the list is submitted
+     */
+    @Before
+    public void createAdapter() throws InterruptedException {
+        final Context context = new ContextThemeWrapper(
+                InstrumentationRegistry.getTargetContext(), R.style.AppTheme);
+        final List<Article> articles = new ArrayList<>(ARTICLE_COUNT);
+        for(int i = 0; i < ARTICLE_COUNT; i++){
+            Article article = new Article();
+            article.setId(i + 1);
+            article.setShopId(1);
+            article.setName("Article " + i);
+            article.setAmount(i % 5 + 1);
+            article.setMeasure(i % 2 == 0 ? "kg" : null);
+            article.setStrikethrough(i % 3 == 0);
+            article.setPriority((i + 1) * ArticlePriorities.GAP);
+            articles.add(article);
+        }
+        final CountDownLatch shown = new CountDownLatch(1);
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                adapter = new ArticleAdapter(articleManager);
+                adapter.submitArticles(articles, new Runnable() {
+                    @Override
+                    public void run() {
+                        shown.countDown();
+                    }
+                });
+                holder = adapter.onCreateViewHolder(new LinearLayout(context), 0);
+            }
+        });
+        assertTrue("The list was not shown", shown.await(5, TimeUnit.SECONDS));
+    }
+
+    // =============
+    // === TESTS ===
+    // =============
+
+    // The allocation counts of Debug are deprecated (they may be dropped by the runtime), but they
+    // are the only count of the objects allocated by one thread, a heap size would include the
+    // allocations of the other threads and the garbage collections
+    @SuppressWarnings("deprecation")
+    @Test
+    public void bindDoesNotAllocate() {
+        final List<Object> noPayloads = Collections.emptyList();
+        final int[] allocations = new int[1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                // Warm up every row, the amount texts are formatted on their first bind
+                for(int i = 0; i < ARTICLE_COUNT; i++){
+                    adapter.onBindViewHolder(holder, i, noPayloads);
+                }
+                Debug.resetThreadAllocCount();
+                Debug.startAllocCounting();
+                for(int i = 0; i < BIND_COUNT; i++){
+                    adapter.onBindViewHolder(holder, i % ARTICLE_COUNT, noPayloads);
+                }
+                Debug.stopAllocCounting();
+                allocations[0] = Debug.getThreadAllocCount();
+            }
+        });
+        assertEquals("Allocations in " + BIND_COUNT + " binds", 0, allocations[0]);
+    }
+}
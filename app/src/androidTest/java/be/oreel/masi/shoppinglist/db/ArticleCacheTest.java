@@ -0,0 +1,210 @@
+package be.oreel.masi.shoppinglist.db;
+
+import android.content.ComponentCallbacks2;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import be.oreel.masi.shoppinglist.model.Article;
+import be.oreel.masi.shoppinglist.model.ListOrder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the cached shops follow the writes of the articles and are dropped least recently
+ * opened first, within a size counted in articles
+ */
+@RunWith(AndroidJUnit4.class)
+public class ArticleCacheTest {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    // Room for two shops of four articles (each shop counts one more)
+    private static final int MAX_ARTICLES = 10;
+
+    private ArticleCache cache;
+
+    // =============
+    // === SETUP ===
+    // =============
+
+    /**
+     * Creates an empty cache
+     */
+    @Before
+    public void createCache() {
+        cache = new ArticleCache(MAX_ARTICLES);
+    }
+
+    // =============
+    // === TESTS ===
+    // =============
+
+    @Test
+    public void getReturnsCopiesInListOrder() {
+        cache.put(1, createShop(1, 4));
+        List<Article> articles = cache.get(1, ListOrder.MANUAL);
+        assertEquals(Arrays.asList(4L, 3L, 2L, 1L), getIds(articles));
+        assertEquals(1, cache.getHitCount());
+        // The copies can be changed, the cached articles stay as they are stored
+        articles.get(0).setName("Changed");
+        assertEquals("Article 4", cache.get(1, ListOrder.MANUAL).get(0).getName());
+        assertEquals(0, cache.get(1, ListOrder.MANUAL).get(0).getDirtyFields());
+        // Not cached
+        assertNull(cache.get(2, ListOrder.MANUAL));
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void leastRecentlyOpenedShopIsDropped() {
+        cache.put(1, createShop(1, 4));
+        cache.put(2, createShop(2, 4));
+        assertEquals(MAX_ARTICLES, cache.getSize());
+        // Opened after the second shop
+        cache.get(1, ListOrder.MANUAL);
+        cache.put(3, createShop(3, 1));
+        assertTrue(cache.contains(1));
+        assertFalse(cache.contains(2));
+        assertTrue(cache.contains(3));
+    }
+
+    @Test
+    public void shopBiggerThanCacheIsNotCached() {
+        assertTrue(cache.fits(MAX_ARTICLES - 1));
+        assertFalse(cache.fits(MAX_ARTICLES));
+        cache.put(1, createShop(1, 2));
+        // The shop grew too big, its old articles are dropped too
+        cache.put(1, createShop(1, MAX_ARTICLES));
+        assertFalse(cache.contains(1));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void addedAndRemovedArticlesFollowTheirShop() {
+        cache.put(1, createShop(1, 2));
+        Article added = createArticle(1, 10, 0);
+        // The articles of a shop which isn't cached are left out
+        cache.add(Arrays.asList(added, createArticle(2, 11, 1)));
+        assertEquals(Arrays.asList(10L, 2L, 1L), getIds(cache.get(1, ListOrder.MANUAL)));
+        assertFalse(cache.contains(2));
+        assertEquals(4, cache.getSize());
+        // Found without its shop id, as in cursor mode
+        Article removed = new Article();
+        removed.setId(2);
+        cache.remove(Arrays.asList(removed, added));
+        assertEquals(Collections.singletonList(1L), getIds(cache.get(1, ListOrder.MANUAL)));
+        assertEquals(2, cache.getSize());
+    }
+
+    @Test
+    public void updateCopiesOnlyStoredFields() {
+        cache.put(1, createShop(1, 2));
+        Article article = createArticle(1, 1, 1);
+        article.setName("Renamed");
+        article.setAmount(5);
+        cache.update(article, Article.FIELD_NAME);
+        Article cached = findArticle(cache.get(1, ListOrder.MANUAL), 1);
+        assertEquals("Renamed", cached.getName());
+        assertEquals(1, cached.getAmount());
+    }
+
+    @Test
+    public void strikethroughIsSetNotFlipped() {
+        cache.put(1, createShop(1, 2));
+        Article article = createArticle(1, 1, 1);
+        article.setStrikethrough(true);
+        // Written twice, e.g. by a buffered update and a toggle of the selection
+        cache.update(Collections.singletonList(article), Article.FIELD_STRIKETHROUGH);
+        cache.update(Collections.singletonList(article), Article.FIELD_STRIKETHROUGH);
+        List<Article> articles = cache.get(1, ListOrder.MANUAL);
+        assertTrue(findArticle(articles, 1).isStrikethrough());
+        assertFalse(findArticle(articles, 2).isStrikethrough());
+    }
+
+    @Test
+    public void trimKeepsMostRecentlyOpenedShops() {
+        cache.put(1, createShop(1, 4));
+        cache.put(2, createShop(2, 4));
+        cache.trim(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+        assertFalse(cache.contains(1));
+        assertTrue(cache.contains(2));
+        cache.trim(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        assertEquals(0, cache.getSize());
+    }
+
+    // ========================
+    // === HELPER FUNCTIONS ===
+    // ========================
+
+    /**
+     * Creates the stored articles of a shop, in reverse priority order
+     * @param shopId The id of the shop
+     * @param count The number of articles
+     * @return The articles, with ids from 1 and the highest priority first
+     */
+    private static List<Article> createShop(long shopId, int count) {
+        List<Article> articles = new ArrayList<>(count);
+        for(int i = 1; i <= count; i++){
+            articles.add(createArticle(shopId, i, count - i + 1));
+        }
+        return articles;
+    }
+
+    /**
+     * Creates a stored article
+     * @param shopId The id of the shop of the article
+     * @param id The id of the article
+     * @param priority The priority of the article
+     * @return The article, without changed fields
+     */
+    private static Article createArticle(long shopId, long id, int priority) {
+        Article article = new Article();
+        article.setId(id);
+        article.setShopId(shopId);
+        article.setName("Article " + id);
+        article.setAmount(1);
+        article.setPriority(priority);
+        article.clearDirtyFields(Article.ALL_FIELDS);
+        return article;
+    }
+
+    /**
+     * Returns the ids of articles
+     * @param articles The articles
+     * @return The ids, in the order of the list
+     */
+    private static List<Long> getIds(List<Article> articles) {
+        List<Long> ids = new ArrayList<>(articles.size());
+        for(Article article : articles){
+            ids.add(article.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Returns an article of a list
+     * @param articles The articles
+     * @param id The id of the article
+     * @return The article, null if it isn't in the list
+     */
+    private static Article findArticle(List<Article> articles, long id) {
+        for(Article article : articles){
+            if(article.getId() == id){
+                return article;
+            }
+        }
+        return null;
+    }
+}
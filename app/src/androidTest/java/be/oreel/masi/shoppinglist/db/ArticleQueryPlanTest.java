@@ -0,0 +1,156 @@
+package be.oreel.masi.shoppinglist.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQueryBuilder;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import be.oreel.masi.shoppinglist.model.Article;
+import be.oreel.masi.shoppinglist.model.ListOrder;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the queries of the articles of a shop walk an index instead of scanning and
+ * sorting the article table
+ * The queries are built from the selections and orders of ArticleDataSource
+ */
+@RunWith(AndroidJUnit4.class)
+public class ArticleQueryPlanTest {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    // The number of articles of a page, as loaded by the list
+    private static final String PAGE_SIZE = "100";
+
+    private SQLiteDatabase database;
+
+    // =============
+    // === SETUP ===
+    // =============
+
+    /**
+     * Creates an empty in-memory database with the current schema
+     */
+    @Before
+    public void createDatabase() {
+        database = SQLiteDatabase.create(null);
+        DBHelper.getInstance(InstrumentationRegistry.getTargetContext()).onCreate(database);
+    }
+
+    /**
+     * Closes the database
+     */
+    @After
+    public void closeDatabase() {
+        database.close();
+    }
+
+    // =============
+    // === TESTS ===
+    // =============
+
+    @Test
+    public void firstPageUsesIndexOfOrder() {
+        for(ListOrder order : ListOrder.values()){
+            String plan = explain(ArticleDataSource.SELECTION_SHOP, order, "1");
+            assertUsesIndex(plan, getIndex(order));
+        }
+    }
+
+    @Test
+    public void nextPageIsIndexRange() {
+        Article after = new Article();
+        after.setId(7);
+        after.setShopId(1);
+        after.setName("Milk");
+        after.setPriority(1024);
+        for(ListOrder order : ListOrder.values()){
+            String plan = explain(ArticleDataSource.SELECTION_SHOP + " AND " +
+                    ArticleDataSource.getAfterSelection(order), order,
+                    ArticleDataSource.getAfterArgs(1, order, after));
+            assertUsesIndex(plan, getIndex(order));
+            // The page starts at the key of the last article, not at the first article of the shop
+            assertTrue("No range on the first key of " + order + ":\n" + plan,
+                    plan.contains(getRange(order)));
+        }
+    }
+
+    // ========================
+    // === HELPER FUNCTIONS ===
+    // ========================
+
+    /**
+     * Returns the query plan of a page of the articles of a shop, built like SQLiteDatabase.query
+     * @param selection The selection of the articles
+     * @param order The order of the articles
+     * @param args The arguments of the selection
+     * @return The details of the plan, one step per line
+     */
+    private String explain(String selection, ListOrder order, String... args) {
+        String sql = SQLiteQueryBuilder.buildQueryString(false, DBHelper.TABLE_ARTICLE, null,
+                selection, null, null, ArticleDataSource.getOrderBy(order), PAGE_SIZE);
+        Cursor cursor = database.rawQuery("EXPLAIN QUERY PLAN " + sql, args);
+        StringBuilder plan = new StringBuilder();
+        int detail = cursor.getColumnIndexOrThrow("detail");
+        while(cursor.moveToNext()){
+            plan.append(cursor.getString(detail)).append('\n');
+        }
+        cursor.close();
+        return plan.toString();
+    }
+
+    /**
+     * Returns the index serving a list order
+     * @param order The list order
+     * @return The name of the index
+     */
+    private static String getIndex(ListOrder order) {
+        switch (order){
+            case NAME_ASC:
+            case NAME_DESC:
+                return DBHelper.INDEX_ARTICLE_SHOP_NAME;
+            case CHECKED_LAST:
+                return DBHelper.INDEX_ARTICLE_SHOP_CHECKED;
+            default:
+                return DBHelper.INDEX_ARTICLE_SHOP_PRIORITY;
+        }
+    }
+
+    /**
+     * Returns the range on the first key of a list order, as shown in a plan
+     * @param order The list order
+     * @return The condition on the first key
+     */
+    private static String getRange(ListOrder order) {
+        switch (order){
+            case NAME_ASC:
+                return DBHelper.COLUMN_ARTICLE_NAME + ">?";
+            case NAME_DESC:
+                return DBHelper.COLUMN_ARTICLE_NAME + "<?";
+            case CHECKED_LAST:
+                return DBHelper.COLUMN_STRIKETHROUGH + ">?";
+            default:
+                return DBHelper.COLUMN_PRIORITY + ">?";
+        }
+    }
+
+    /**
+     * Checks that a plan walks an index, in the order of the query
+     * @param plan The query plan
+     * @param index The name of the index
+     */
+    private static void assertUsesIndex(String plan, String index) {
+        assertTrue("Not using " + index + ":\n" + plan, plan.contains("INDEX " + index));
+        assertFalse("Sorted after the read:\n" + plan, plan.contains("TEMP B-TREE"));
+    }
+}
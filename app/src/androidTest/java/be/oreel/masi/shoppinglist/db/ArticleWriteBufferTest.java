@@ -0,0 +1,166 @@
+package be.oreel.masi.shoppinglist.db;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import be.oreel.masi.shoppinglist.model.Article;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that quick edits of an article are merged into a single write, sent once the edits
+ * stop or when the buffer is flushed
+ * The writes are recorded instead of being sent to the database
+ */
+@RunWith(AndroidJUnit4.class)
+public class ArticleWriteBufferTest {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    // How long a write is waited for, in milliseconds
+    private static final long TIMEOUT = 5000;
+
+    // The batches of articles written, in order
+    private final List<List<Article>> batches = Collections.synchronizedList(
+            new ArrayList<List<Article>>());
+    private CountDownLatch written;
+    private ArticleWriteBuffer buffer;
+
+    // =============
+    // === SETUP ===
+    // =============
+
+    /**
+     * Creates a buffer writing to a datasource which only records the writes
+     */
+    @Before
+    public void createBuffer() {
+        written = new CountDownLatch(1);
+        ArticleDataSource datasource =
+                new ArticleDataSource(InstrumentationRegistry.getTargetContext()) {
+                    @Override
+                    public void updateArticles(List<Article> articles) {
+                        batches.add(articles);
+                        written.countDown();
+                    }
+                };
+        buffer = new ArticleWriteBuffer(datasource);
+    }
+
+    // =============
+    // === TESTS ===
+    // =============
+
+    @Test
+    public void quickEditsAreMergedIntoOneWrite() throws InterruptedException {
+        final Article article = createArticle(1, "Milk");
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                article.setAmount(2);
+                buffer.put(article);
+                article.setAmount(3);
+                buffer.put(article);
+                article.setName("Oat milk");
+                buffer.put(article);
+                buffer.flush();
+            }
+        });
+        // The changes are on their way to the database
+        assertEquals(0, article.getDirtyFields());
+        assertTrue("Nothing written", written.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals(1, batches.size());
+        assertEquals(1, batches.get(0).size());
+        Article snapshot = batches.get(0).get(0);
+        assertEquals(3, snapshot.getAmount());
+        assertEquals("Oat milk", snapshot.getName());
+        // The fields changed by all the edits are written
+        assertEquals(Article.FIELD_AMOUNT | Article.FIELD_NAME, snapshot.getDirtyFields());
+    }
+
+    @Test
+    public void editsAreWrittenOnceTheyStop() throws InterruptedException {
+        final Article milk = createArticle(1, "Milk");
+        final Article bread = createArticle(2, "Bread");
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                milk.setAmount(2);
+                buffer.put(milk);
+                bread.setStrikethrough(true);
+                buffer.put(bread);
+            }
+        });
+        // Held back for a while, then written together
+        assertFalse("Written right away",
+                written.await(ArticleWriteBuffer.DEBOUNCE_DELAY / 5, TimeUnit.MILLISECONDS));
+        assertTrue("Nothing written", written.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals(1, batches.size());
+        List<Article> batch = batches.get(0);
+        assertEquals(Arrays.asList(1L, 2L), Arrays.asList(batch.get(0).getId(),
+                batch.get(1).getId()));
+        assertEquals(Article.FIELD_AMOUNT, batch.get(0).getDirtyFields());
+        assertEquals(Article.FIELD_STRIKETHROUGH, batch.get(1).getDirtyFields());
+    }
+
+    @Test
+    public void laterEditsDoNotChangeQueuedSnapshot() throws InterruptedException {
+        final Article article = createArticle(1, "Milk");
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                article.setAmount(2);
+                buffer.put(article);
+                // Changed but not queued yet
+                article.setAmount(5);
+                buffer.flush();
+            }
+        });
+        assertTrue("Nothing written", written.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals(2, batches.get(0).get(0).getAmount());
+        assertEquals(Article.FIELD_AMOUNT, article.getDirtyFields());
+    }
+
+    // ========================
+    // === HELPER FUNCTIONS ===
+    // ========================
+
+    /**
+     * Creates an article as it is stored
+     * @param id The id of the article
+     * @param name The name of the article
+     * @return The article, without changed fields
+     */
+    private static Article createArticle(long id, String name) {
+        Article article = new Article();
+        article.setId(id);
+        article.setShopId(1);
+        article.setName(name);
+        article.setAmount(1);
+        article.clearDirtyFields(Article.ALL_FIELDS);
+        return article;
+    }
+
+    /**
+     * Runs a task on the main thread, where the buffer is used, and waits for it
+     * @param task The task
+     */
+    private static void runOnMainSync(Runnable task) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(task);
+    }
+}
@@ -0,0 +1,291 @@
+package be.oreel.masi.shoppinglist.db;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Migrates a version 4 database holding articles, one step at a time and all the steps at once,
+ * and checks that the data is kept and the schema ends up like a new database
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationsTest {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    private static final String DATABASE_NAME = "migrations-test.db";
+    // The version reached by the last migration
+    private static final int LATEST_VERSION = 8;
+
+    // The schema of version 4, the oldest migratable one, as it was written then
+    private static final String[] VERSION_4_SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS shop( " +
+                    "_id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    "name TEXT NOT NULL UNIQUE);",
+            "CREATE TABLE IF NOT EXISTS article( " +
+                    "_id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    "shop_id INTEGER NOT NULL," +
+                    "name TEXT NOT NULL," +
+                    "amount INTEGER NOT NULL DEFAULT 1 CHECK(amount > 0), " +
+                    "measure TEXT," +
+                    "strikethrough INTEGER NOT NULL DEFAULT 0 CHECK(strikethrough IN (0,1))," +
+                    "priority INTEGER NOT NULL DEFAULT 0," +
+                    " FOREIGN KEY(shop_id) REFERENCES shop(_id));"
+    };
+    private static final String[] VERSION_4_DATA = {
+            "INSERT INTO shop(_id, name) VALUES (1, 'Bakery')",
+            "INSERT INTO shop(_id, name) VALUES (2, 'Market')",
+            "INSERT INTO article(shop_id, name, amount, measure, strikethrough, priority) " +
+                    "VALUES (1, 'Bread', 2, 'pieces', 0, 1)",
+            "INSERT INTO article(shop_id, name, amount, measure, strikethrough, priority) " +
+                    "VALUES (1, 'Whole milk', 1, 'l', 1, 2)",
+            "INSERT INTO article(shop_id, name, amount, measure, strikethrough, priority) " +
+                    "VALUES (2, 'Milk chocolate', 3, NULL, 0, 1)"
+    };
+    // The data of version 4, as read by readShops and readArticles
+    private static final List<String> SHOPS = Arrays.asList("1|Bakery", "2|Market");
+    private static final List<String> ARTICLES = Arrays.asList(
+            "1|1|Bread|2|pieces|0|1",
+            "2|1|Whole milk|1|l|1|2",
+            "3|2|Milk chocolate|3|null|0|1");
+
+    private Context context;
+    private SQLiteDatabase database;
+
+    // =============
+    // === SETUP ===
+    // =============
+
+    /**
+     * Creates a version 4 database holding a few shops and articles
+     */
+    @Before
+    public void createVersion4Database() {
+        context = InstrumentationRegistry.getTargetContext();
+        context.deleteDatabase(DATABASE_NAME);
+        File file = context.getDatabasePath(DATABASE_NAME);
+        file.getParentFile().mkdirs();
+        database = SQLiteDatabase.openOrCreateDatabase(file, null);
+        for(String sql : VERSION_4_SCHEMA){
+            database.execSQL(sql);
+        }
+        for(String sql : VERSION_4_DATA){
+            database.execSQL(sql);
+        }
+        database.setVersion(4);
+    }
+
+    /**
+     * Closes and deletes the database
+     */
+    @After
+    public void deleteDatabase() {
+        database.close();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    // =============
+    // === TESTS ===
+    // =============
+
+    @Test
+    public void version5AddsDeletedFlag() {
+        migrateStepByStep(5);
+        assertDataKept();
+        assertTrue(getColumns(database, DBHelper.TABLE_ARTICLE).contains(DBHelper.COLUMN_DELETED));
+        // None of the existing articles is removed
+        assertEquals(ARTICLES.size(), count("SELECT COUNT(*) FROM article WHERE deleted = 0"));
+    }
+
+    @Test
+    public void version6AddsPriorityIndex() {
+        migrateStepByStep(6);
+        assertDataKept();
+        assertTrue(getSchemaNames(database, "index").contains(DBHelper.INDEX_ARTICLE_SHOP_PRIORITY));
+    }
+
+    @Test
+    public void version7AddsListOrderAndSortIndexes() {
+        migrateStepByStep(7);
+        assertDataKept();
+        assertTrue(getColumns(database, DBHelper.TABLE_SHOP).contains(DBHelper.COLUMN_LIST_ORDER));
+        assertEquals(SHOPS.size(), count("SELECT COUNT(*) FROM shop WHERE list_order = 'MANUAL'"));
+        Set<String> indexes = getSchemaNames(database, "index");
+        assertTrue(indexes.contains(DBHelper.INDEX_ARTICLE_SHOP_NAME));
+        assertTrue(indexes.contains(DBHelper.INDEX_ARTICLE_SHOP_CHECKED));
+    }
+
+    @Test
+    public void version8IndexesExistingNames() {
+        migrateStepByStep(8);
+        assertDataKept();
+        assertFullTextIndexKept();
+    }
+
+    @Test
+    public void allStepsAtOnceReachNewSchema() {
+        Migrations.migrate(database, 4, LATEST_VERSION);
+        assertDataKept();
+        assertFullTextIndexKept();
+        // Same tables, columns, indexes and triggers as a database created at the latest version
+        SQLiteDatabase created = SQLiteDatabase.create(null);
+        DBHelper.getInstance(context).onCreate(created);
+        for(String table : new String[]{DBHelper.TABLE_SHOP, DBHelper.TABLE_ARTICLE,
+                DBHelper.TABLE_ARTICLE_FTS}){
+            assertEquals(table, getColumns(created, table), getColumns(database, table));
+        }
+        for(String type : new String[]{"table", "index", "trigger"}){
+            assertEquals(type, getSchemaNames(created, type), getSchemaNames(database, type));
+        }
+        created.close();
+    }
+
+    // ========================
+    // === HELPER FUNCTIONS ===
+    // ========================
+
+    /**
+     * Runs the migrations from version 4 one step at a time
+     * @param version The version to reach
+     */
+    private void migrateStepByStep(int version) {
+        for(int step = 5; step <= version; step++){
+            Migrations.migrate(database, step - 1, step);
+            database.setVersion(step);
+        }
+    }
+
+    /**
+     * Checks that the shops and articles of version 4 are all there, unchanged
+     */
+    private void assertDataKept() {
+        assertEquals(SHOPS, readShops());
+        assertEquals(ARTICLES, readArticles());
+    }
+
+    /**
+     * Checks that the names of the existing articles are indexed and that the index follows
+     * the changes of the names
+     */
+    private void assertFullTextIndexKept() {
+        assertEquals(Arrays.asList(2L, 3L), match("milk"));
+        assertEquals(Arrays.asList(1L), match("bread"));
+        database.execSQL("INSERT INTO article(shop_id, name) VALUES (2, 'Oat milk')");
+        assertEquals(Arrays.asList(2L, 3L, 4L), match("milk"));
+        database.execSQL("UPDATE article SET name = 'Cream' WHERE _id = 2");
+        assertEquals(Arrays.asList(3L, 4L), match("milk"));
+        assertEquals(Arrays.asList(2L), match("cream"));
+        database.execSQL("DELETE FROM article WHERE _id = 4");
+        assertEquals(Arrays.asList(3L), match("milk"));
+    }
+
+    /**
+     * Returns the shops
+     * @return Each shop as "id|name", by id
+     */
+    private List<String> readShops() {
+        Cursor cursor = database.rawQuery("SELECT _id, name FROM shop ORDER BY _id", null);
+        List<String> shops = new ArrayList<>();
+        while(cursor.moveToNext()){
+            shops.add(cursor.getLong(0) + "|" + cursor.getString(1));
+        }
+        cursor.close();
+        return shops;
+    }
+
+    /**
+     * Returns the articles
+     * @return Each article as "id|shop_id|name|amount|measure|strikethrough|priority", by id
+     */
+    private List<String> readArticles() {
+        Cursor cursor = database.rawQuery("SELECT _id, shop_id, name, amount, measure, " +
+                "strikethrough, priority FROM article ORDER BY _id", null);
+        List<String> articles = new ArrayList<>();
+        while(cursor.moveToNext()){
+            articles.add(cursor.getLong(0) + "|" + cursor.getLong(1) + "|" + cursor.getString(2) +
+                    "|" + cursor.getInt(3) + "|" + cursor.getString(4) + "|" + cursor.getInt(5) +
+                    "|" + cursor.getInt(6));
+        }
+        cursor.close();
+        return articles;
+    }
+
+    /**
+     * Searches the full-text index of the names
+     * @param query The full-text query
+     * @return The ids of the found articles, in order
+     */
+    private List<Long> match(String query) {
+        Cursor cursor = database.rawQuery("SELECT docid FROM article_fts " +
+                "WHERE article_fts MATCH ? ORDER BY docid", new String[]{query});
+        List<Long> ids = new ArrayList<>();
+        while(cursor.moveToNext()){
+            ids.add(cursor.getLong(0));
+        }
+        cursor.close();
+        return ids;
+    }
+
+    /**
+     * Runs a counting query
+     * @param sql The query
+     * @return The count
+     */
+    private long count(String sql) {
+        return DatabaseUtils.longForQuery(database, sql, null);
+    }
+
+    /**
+     * Returns the columns of a table
+     * @param db The database
+     * @param table The table
+     * @return The names of the columns
+     */
+    private static Set<String> getColumns(SQLiteDatabase db, String table) {
+        Cursor cursor = db.rawQuery("PRAGMA table_info(" + table + ")", null);
+        Set<String> columns = new HashSet<>();
+        int name = cursor.getColumnIndexOrThrow("name");
+        while(cursor.moveToNext()){
+            columns.add(cursor.getString(name));
+        }
+        cursor.close();
+        return columns;
+    }
+
+    /**
+     * Returns the names of the tables, indexes or triggers of a database
+     * @param db The database
+     * @param type The type of the schema objects ("table", "index" or "trigger")
+     * @return The names
+     */
+    private static Set<String> getSchemaNames(SQLiteDatabase db, String type) {
+        Cursor cursor = db.rawQuery("SELECT name FROM sqlite_master WHERE type = ?",
+                new String[]{type});
+        Set<String> names = new HashSet<>();
+        while(cursor.moveToNext()){
+            names.add(cursor.getString(0));
+        }
+        cursor.close();
+        return names;
+    }
+}
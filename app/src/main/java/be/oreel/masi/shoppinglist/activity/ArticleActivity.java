@@ -3,6 +3,8 @@ package be.oreel.masi.shoppinglist.activity;
 import android.content.ClipData;
 import android.content.ClipboardManager;
 import android.content.DialogInterface;
+import android.content.Intent;
+import android.database.Cursor;
 import android.os.Bundle;
 import android.support.design.widget.FloatingActionButton;
 import android.support.design.widget.Snackbar;
@@ -15,19 +17,28 @@ import android.support.v7.widget.helper.ItemTouchHelper;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
+import android.widget.AutoCompleteTextView;
 import android.widget.EditText;
 import android.widget.LinearLayout;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import be.oreel.masi.shoppinglist.adapter.ArticleManager;
 import be.oreel.masi.shoppinglist.adapter.ArticleAdapter;
+import be.oreel.masi.shoppinglist.adapter.ArticleCursorAdapter;
+import be.oreel.masi.shoppinglist.adapter.ExportCallback;
+import be.oreel.masi.shoppinglist.adapter.NameSuggestionAdapter;
 import be.oreel.masi.shoppinglist.model.Shop;
 import be.oreel.masi.shoppinglist.model.Article;
+import be.oreel.masi.shoppinglist.model.ExportFormat;
+import be.oreel.masi.shoppinglist.model.ListOrder;
+import be.oreel.masi.shoppinglist.model.SortMode;
 import be.oreel.masi.shoppinglist.model.ToolbarMode;
-import be.oreel.masi.shoppinglist.db.ArticleDataSource;
+import be.oreel.masi.shoppinglist.db.ArticlePager;
+import be.oreel.masi.shoppinglist.db.ArticleRepository;
+import be.oreel.masi.shoppinglist.db.DBCallback;
+import be.oreel.masi.shoppinglist.db.ShopRepository;
 import be.oreel.masi.shoppinglist.R;
 
 /**
@@ -39,10 +50,24 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
     // === VARIABLES ===
     // =================
 
+    // The key of the selected article ids in the saved instance state
+    private static final String STATE_SELECTED_IDS = "selected_ids";
+    private static final long NO_ARTICLE = -1;
+
     private Shop shop;
-    private ArticleDataSource datasource;
+    // The article opened from a search, the list is scrolled to it once it is loaded
+    private long targetArticleId = NO_ARTICLE;
+    private ArticleRepository repository;
+    private ShopRepository shopRepository;
+    private ArticlePager pager;
     private ArticleAdapter adapter;
-    private List<Article> articles;
+    // Only set in cursor mode, see R.bool.article_cursor_adapter
+    private ArticleCursorAdapter cursorAdapter;
+    // Incremented on every cursor load, the cursors are read in parallel and may come back
+    // out of order, an outdated one is closed instead of shown
+    private int cursorGeneration;
+    // Set once the activity is destroyed, e.g. by a configuration change (it isn't finishing then)
+    private boolean destroyed = false;
     private ToolbarMode toolbarMode;
     private ClipboardManager clipboard;
 
@@ -64,37 +89,91 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
         shop = b != null ? (Shop) b.getSerializable(getString(R.string.bundle_shop_id)) : null;
         String shopName = shop != null ? shop.getName() :
                 getString(R.string.article_activity_title);
+        // Only scroll to the searched article the first time, not after a configuration change
+        if(b != null && savedInstanceState == null){
+            targetArticleId = b.getLong(getString(R.string.bundle_article_id), NO_ARTICLE);
+        }
         // Set the shop name as the title of this activity
         if(getSupportActionBar() != null){
             getSupportActionBar().setTitle(shopName);
         }
 
-        // Set the datasource
-        datasource = new ArticleDataSource(this);
+        // Set the repository
+        repository = ArticleRepository.getInstance(this);
+        shopRepository = ShopRepository.getInstance(this);
         // Set the clipboard manager
         clipboard = (ClipboardManager) getSystemService(CLIPBOARD_SERVICE);
-        // Get all articles from the shop
-        articles = getAllArticles();
         // Create the adapter for the recyclerView
-        adapter = new ArticleAdapter(this, articles);
+        // The articles are loaded in the background, it starts with an empty list
+        adapter = new ArticleAdapter(this);
         // Get the recyclerView
         RecyclerView recyclerView = getRecyclerView();
-        // Set the adapter
-        recyclerView.setAdapter(adapter);
-        // Add the itemTouchHelper
-        ItemTouchHelper itemTouchHelper = new ItemTouchHelper(getItemTouchCallback());
-        itemTouchHelper.attachToRecyclerView(recyclerView);
         // Add the line dividers between the recyclerView Items
         DividerItemDecoration dividerItemDecoration = new DividerItemDecoration(
                 getRecyclerView().getContext(),
                 LinearLayoutManager.VERTICAL);
         recyclerView.addItemDecoration(dividerItemDecoration);
+        // In cursor mode the rows are bound straight from the database, without creating the articles
+        if(getResources().getBoolean(R.bool.article_cursor_adapter)){
+            cursorAdapter = new ArticleCursorAdapter(this);
+            recyclerView.setAdapter(cursorAdapter);
+            // Get all articles from the shop
+            loadArticlesCursor();
+            return;
+        }
+        // Set the adapter
+        recyclerView.setAdapter(adapter);
+        // Add the itemTouchHelper
+        ItemTouchHelper itemTouchHelper = new ItemTouchHelper(getItemTouchCallback());
+        itemTouchHelper.attachToRecyclerView(recyclerView);
+        // Load the next page before the end of the list is reached
+        recyclerView.addOnScrollListener(getPrefetchListener());
+        // Select again the articles which were selected before a configuration change
+        if(savedInstanceState != null){
+            long[] selectedIds = savedInstanceState.getLongArray(STATE_SELECTED_IDS);
+            if(selectedIds != null){
+                adapter.setSelectedIds(selectedIds);
+            }
+        }
+        // Get all articles from the shop
+        loadArticles();
+    }
+
+    /**
+     * Saves the selection, it is restored in onCreate
+     * @param outState The bundle in which the state is saved
+     */
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putLongArray(STATE_SELECTED_IDS, adapter.getSelectedIds());
     }
 
     // ====================
     // === RECYCLERVIEW ===
     // ====================
 
+    /**
+     * Creates the scroll listener loading the next page of articles when nearing the end of the list
+     * @return The scroll listener
+     */
+    private RecyclerView.OnScrollListener getPrefetchListener(){
+        return new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                if(pager.isAllLoaded()){
+                    return;
+                }
+                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+                // Start loading when less than half a page is left below the screen
+                if(layoutManager.findLastVisibleItemPosition() >=
+                        adapter.getItemCount() - ArticlePager.PAGE_SIZE / 2){
+                    pager.loadNextPage();
+                }
+            }
+        };
+    }
+
     /**
      * Creates the ItemTouchHelper Callback for the recyclerView of the ArticleActivity
      * @return The ItemTouchHelper Callback
@@ -104,6 +183,8 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
 
             // Whether a item is being moved
             private boolean moved = false;
+            // Whether a item is being dragged since the last drop
+            private boolean dragged = false;
 
             /**
              * Enables the drag functionality of the recyclerView
@@ -146,6 +227,10 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
              */
             @Override
             public void onSelectedChanged(RecyclerView.ViewHolder viewHolder, int actionState){
+                // Remember that the dropped item will have to be saved
+                if(actionState == ItemTouchHelper.ACTION_STATE_DRAG){
+                    dragged = true;
+                }
                 // If the toolbar mode is not already in normal and an item is dropped
                 if(toolbarMode != ToolbarMode.NORMAL && moved && actionState == ItemTouchHelper.ACTION_STATE_IDLE){
                     // State that the item is not being moved anymore
@@ -155,6 +240,37 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
                 }
             }
 
+            /**
+             * Saves the new position of a dropped item
+             * @param recyclerView The recyclerView
+             * @param viewHolder The viewHolder which was dragged or swiped
+             */
+            @Override
+            public void clearView(RecyclerView recyclerView, RecyclerView.ViewHolder viewHolder){
+                super.clearView(recyclerView, viewHolder);
+                int position = viewHolder.getAdapterPosition();
+                if(dragged && position != RecyclerView.NO_POSITION){
+                    // Only the priority of the dropped article is written, from its loaded neighbours
+                    final Article dropped = adapter.getArticle(position);
+                    if(adapter.savePosition(dropped, pager.isAllLoaded())){
+                        // A drop in a sorted list switches the shop to manual order
+                        saveListOrder(adapter.getListOrder());
+                    }
+                    else{
+                        // The whole list is needed, its last pages are not shown yet when this
+                        // runs: the article is looked up in the submitted list
+                        pager.whenAllLoaded(new Runnable() {
+                            @Override
+                            public void run() {
+                                adapter.savePosition(dropped, true);
+                                saveListOrder(adapter.getListOrder());
+                            }
+                        });
+                    }
+                }
+                dragged = false;
+            }
+
             /**
              * States that a recyclerView item is being moved
              * @param recyclerView The recyclerView
@@ -185,18 +301,8 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
                                   RecyclerView.ViewHolder target) {
                 int fromPosition = viewHolder.getLayoutPosition();
                 int toPosition = target.getLayoutPosition();
-                // Swap the articles of the viewHolders
-                if (fromPosition < toPosition) {
-                    for (int i = fromPosition; i < toPosition; i++) {
-                        Collections.swap(articles, i, i + 1);
-                    }
-                } else {
-                    for (int i = fromPosition; i > toPosition; i--) {
-                        Collections.swap(articles, i, i - 1);
-                    }
-                }
-                // Notify that items have been moved
-                adapter.notifyItemMoved(fromPosition, toPosition);
+                // Move the article of the viewHolder, its priority is saved once it is dropped
+                adapter.moveArticle(fromPosition, toPosition);
 
                 return true;
             }
@@ -300,6 +406,14 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
     public boolean onOptionsItemSelected(MenuItem item) {
         int id = item.getItemId();
 
+        // The cursor mode only shows the list, the list actions are not available
+        if(cursorAdapter != null && id != android.R.id.home && id != R.id.action_exit_app){
+            return super.onOptionsItemSelected(item);
+        }
+
+        // The position of the selected article, NO_POSITION if it has left the list in the meantime
+        int position;
+
         // Check which menu item was selected
         switch (id){
             case android.R.id.home:
@@ -311,12 +425,34 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
                 removeArticles();
                 break;
             case R.id.action_sort_alpha:
-                // Sort all articles by name
-                adapter.sortArticlesByName();
+                // Show the articles by name, pressing again reverses the order
+                setListOrder(adapter.getListOrder() == ListOrder.NAME_ASC ?
+                        ListOrder.NAME_DESC : ListOrder.NAME_ASC);
+                break;
+            case R.id.action_sort_amount:
+                // Sort all articles by amount
+                sortArticles(SortMode.AMOUNT);
+                break;
+            case R.id.action_sort_measure:
+                // Sort all articles by measure
+                sortArticles(SortMode.MEASURE);
+                break;
+            case R.id.action_sort_checked:
+                // Show the articles still to buy first, pressing again goes back to manual order
+                setListOrder(adapter.getListOrder() == ListOrder.CHECKED_LAST ?
+                        ListOrder.MANUAL : ListOrder.CHECKED_LAST);
                 break;
             case R.id.action_copy_to_clipboard:
                 // Copy all articles to the clipboard
-                copyArticlesToClipboard();
+                copyArticlesToClipboard(ExportFormat.PLAIN);
+                break;
+            case R.id.action_copy_csv:
+                // Copy all articles to the clipboard, as a table
+                copyArticlesToClipboard(ExportFormat.CSV);
+                break;
+            case R.id.action_share:
+                // Share all articles with another app
+                shareArticles();
                 break;
             case R.id.action_strikethrough:
                 // Strikethrough selected elements
@@ -324,19 +460,32 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
                 break;
             case R.id.action_remove_article:
                 // Remove the selected article
-                removeArticle(adapter.getSelectedItemPosition());
-                return true;
+                position = adapter.getSelectedItemPosition();
+                if(position != RecyclerView.NO_POSITION){
+                    removeArticle(position);
+                    return true;
+                }
+                break;
             case R.id.action_edit_article:
                 // Open the edit article dialog for the selected element
-                openEditArticleDialog(adapter.getSelectedItemPosition());
+                position = adapter.getSelectedItemPosition();
+                if(position != RecyclerView.NO_POSITION){
+                    openEditArticleDialog(position);
+                }
                 break;
             case R.id.action_edit_article_name:
                 // Open the edit article name dialog for the selected element
-                openEditArticleNameDialog(adapter.getSelectedItemPosition());
+                position = adapter.getSelectedItemPosition();
+                if(position != RecyclerView.NO_POSITION){
+                    openEditArticleNameDialog(position);
+                }
                 break;
             case R.id.action_edit_article_amount:
                 // Open the edit article amount dialog for the selected element
-                openEditArticleAmountDialog(adapter.getSelectedItemPosition());
+                position = adapter.getSelectedItemPosition();
+                if(position != RecyclerView.NO_POSITION){
+                    openEditArticleAmountDialog(position);
+                }
                 break;
             case R.id.action_exit_app:
                 // Leave the app
@@ -358,10 +507,8 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
      */
     @Override
     protected void onResume() {
-        // Opens the database
-        datasource.open();
-        // Set the toolbar mode to normal
-        setToolbarMode(ToolbarMode.NORMAL);
+        // Set the toolbar mode matching the selection (normal if nothing is selected)
+        setToolbarMode(adapter.getSelectionToolbarMode());
         super.onResume();
     }
 
@@ -370,13 +517,35 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
      */
     @Override
     protected void onPause() {
-        // Save all the positions of the articles
-        adapter.savePositions();
-        // Close the database
-        datasource.close();
+        // Save the positions of the articles if they no longer follow the priorities (e.g. after a
+        // sort), the priorities are only renumbered on the whole list
+        // The pages still to load are stored in order, a loaded part in order needs nothing
+        if(pager != null && !adapter.arePositionsSaved()){
+            pager.whenAllLoaded(new Runnable() {
+                @Override
+                public void run() {
+                    adapter.savePositions();
+                }
+            });
+        }
+        // Write the edits still held back, the app may not come back
+        repository.flushPendingWrites();
         super.onPause();
     }
 
+    /**
+     * Destruction of the activity
+     */
+    @Override
+    protected void onDestroy() {
+        destroyed = true;
+        // Close the cursor of the cursor mode
+        if(cursorAdapter != null){
+            cursorAdapter.swapCursor(null);
+        }
+        super.onDestroy();
+    }
+
     // =====================
     // === TOOLBAR MODES ===
     // =====================
@@ -451,9 +620,11 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
         LinearLayout contentParent = (LinearLayout) getLayoutInflater().
                 inflate(R.layout.dialog_article, null);
         // Get the editText views from the dialog
-        final EditText inputName = (EditText) contentParent.getChildAt(0);
+        final AutoCompleteTextView inputName = (AutoCompleteTextView) contentParent.getChildAt(0);
         final EditText inputAmount = (EditText) contentParent.getChildAt(1);
         final EditText inputMeasure = (EditText) contentParent.getChildAt(2);
+        // Suggest the names of the articles already added, while typing
+        inputName.setAdapter(new NameSuggestionAdapter(repository.getNameIndex()));
 
         builder.setView(contentParent).
                 setTitle(R.string.dialog_title_add_article).
@@ -481,7 +652,7 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
      * @param position The position of the article in the list
      */
     private void openEditArticleDialog(final int position) {
-        Article article = articles.get(position);
+        Article article = adapter.getArticle(position);
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
 
         // Get the elements from the dialog content
@@ -528,7 +699,7 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
      */
     private void openEditArticleNameDialog(final int position) {
         // Create the dialog to change the name
-        Article article = articles.get(position);
+        Article article = adapter.getArticle(position);
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
 
         // Get the dialog content
@@ -561,7 +732,7 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
      */
     private void openEditArticleAmountDialog(final int position) {
         // Create the dialog to change the amount
-        Article article = articles.get(position);
+        Article article = adapter.getArticle(position);
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
 
         // Get the dialog content
@@ -612,28 +783,32 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
      * @param measure The amount of the new measure
      */
     private void addArticle(String name, int amount, String measure){
-        // Create a new article in the database
-        Article newArticle = datasource.createArticle(shop.getId(), name, amount, measure,
-                false, articles.size());
-        // Add the new article to the list
-        articles.add(newArticle);
-        // Notify the recyclerView that an item was added
-        adapter.notifyItemInserted(articles.size() - 1);
-    }
-
-    /**
-     * Adds a deleted article to the list
-     * @param article The deleted article
-     */
-    private void addArticle(Article article){
-        // Adds a new article to the database
-        Article newArticle = datasource.createArticle(shop.getId(), article.getName(),
-                article.getAmount(), article.getMeasure(),
-                article.isStrikethrough(), article.getPriority());
-        // Adds the new article to the list
-        articles.add(newArticle);
-        // Notify the recyclerView that an item was added
-        adapter.notifyItemInserted(articles.size()-1);
+        // In cursor mode, add the article after the last row and load the cursor again
+        if(cursorAdapter != null){
+            repository.createArticle(shop.getId(), name, amount, measure, false,
+                    new DBCallback<Article>() {
+                        @Override
+                        public void onResult(Article newArticle) {
+                            loadArticlesCursor();
+                        }
+                    });
+            return;
+        }
+        // Create a new article in the database, after the last one of the shop
+        repository.createArticle(shop.getId(), name, amount, measure, false,
+                new DBCallback<Article>() {
+                    @Override
+                    public void onResult(Article newArticle) {
+                        // Unless it comes after the loaded articles (a page still to load holds it)
+                        pager.add(newArticle, new DBCallback<Article>() {
+                            @Override
+                            public void onResult(Article article) {
+                                // Add the new article to the end of the list (or at its place in a sorted list)
+                                adapter.addArticle(article);
+                            }
+                        });
+                    }
+                });
     }
 
     // ========================
@@ -649,15 +824,17 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
      */
     private void updateArticle(int position, String newName, int newAmount, String newMeasure) {
         // Get the article from the list
-        Article article = articles.get(position);
+        Article article = adapter.getArticle(position);
         // Update the article data
         article.setName(newName);
         article.setAmount(newAmount);
         article.setMeasure(newMeasure);
         // Notify the recyclerView that an item was updated
         adapter.notifyItemChanged(position);
+        // Move the article to its place in a sorted list
+        adapter.applyListOrder();
         // Update the article in the database
-        datasource.updateArticle(article);
+        repository.updateArticle(article);
     }
 
     /**
@@ -667,13 +844,15 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
      */
     private void updateArticleName(int position, String newName) {
         // Get the article from the list
-        Article article = articles.get(position);
+        Article article = adapter.getArticle(position);
         // Update the article name
         article.setName(newName);
         // Notify the recyclerView that an item was updated
         adapter.notifyItemChanged(position);
+        // Move the article to its place in a sorted list
+        adapter.applyListOrder();
         // Update the article in the database
-        datasource.updateArticle(article);
+        repository.updateArticle(article);
     }
 
     /**
@@ -684,14 +863,14 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
      */
     private void updateArticleAmount(int position, int newAmount, String newMeasure) {
         // Get the article from the list
-        Article article = articles.get(position);
+        Article article = adapter.getArticle(position);
         // Update the article amount
         article.setAmount(newAmount);
         article.setMeasure(newMeasure);
         // Notify the recyclerView that an item was updated
         adapter.notifyItemChanged(position);
         // Update the article in the database
-        datasource.updateArticle(article);
+        repository.updateArticle(article);
     }
 
     /**
@@ -701,7 +880,31 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
     @Override
     public void updateArticle(Article article) {
         // Update the article in the database
-        datasource.updateArticle(article);
+        repository.updateArticle(article);
+    }
+
+    /**
+     * Update the priority of multiple articles in the db
+     * @param articles The articles of which the priority has changed
+     */
+    @Override
+    public void updatePriorities(List<Article> articles) {
+        // Update all the priorities in a single transaction
+        repository.updatePriorities(articles);
+    }
+
+    /**
+     * Flip the strikethrough state of multiple articles in the db
+     * @param articles The articles of which the strikethrough state has been flipped
+     */
+    @Override
+    public void toggleStrikethrough(List<Article> articles) {
+        // Flip all the articles in a single transaction
+        repository.toggleStrikethrough(articles);
+        // The cursor mode has no articles to update, its rows are read again
+        if(cursorAdapter != null){
+            loadArticlesCursor();
+        }
     }
 
     // ========================
@@ -709,15 +912,131 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
     // ========================
 
     /**
-     * Returns all the articles of a shop
-     * @param shopname The name of the shop
-     * @return All the articles of the shop
+     * Loads the first page of articles of the shop in the background and shows it once available
+     * The other pages are loaded while scrolling
      */
-    public List<Article> getAllArticles() {
-        // Open the database
-        datasource.open();
-        // Get all the articles from the chosen shop
-        return datasource.getAllArticles(shop.getId());
+    private void loadArticles() {
+        // Purge the articles still flagged as deleted before reading the first page
+        repository.purgeDeleted(shop.getId());
+        // The database sorts the articles in the order of the shop
+        adapter.setListOrder(shop.getListOrder());
+        pager = new ArticlePager(repository, shop.getId(), shop.getListOrder(),
+                new DBCallback<List<Article>>() {
+                    @Override
+                    public void onResult(List<Article> page) {
+                        // Show the loaded articles after the ones already shown
+                        List<Article> articles =
+                                new ArrayList<>(adapter.getArticles().size() + page.size());
+                        articles.addAll(adapter.getArticles());
+                        articles.addAll(page);
+                        // Load the pages up to the article opened from a search, then scroll to it
+                        adapter.submitArticles(articles, targetArticleId != NO_ARTICLE ?
+                                getTargetArticleScroll(articles) : null);
+                    }
+                });
+        pager.loadNextPage();
+    }
+
+    /**
+     * Returns the scroll to the article opened from a search if it is loaded, loads the next page
+     * otherwise
+     * @param articles The articles loaded so far, in list order
+     * @return The scroll to run once the articles are shown, null if the article isn't loaded
+     */
+    private Runnable getTargetArticleScroll(List<Article> articles) {
+        for(int i = 0; i < articles.size(); i++){
+            if(articles.get(i).getId() == targetArticleId){
+                final int position = i;
+                targetArticleId = NO_ARTICLE;
+                return new Runnable() {
+                    @Override
+                    public void run() {
+                        getRecyclerView().scrollToPosition(position);
+                    }
+                };
+            }
+        }
+        // Not loaded yet (or deleted in the meantime)
+        if(pager.isAllLoaded()){
+            targetArticleId = NO_ARTICLE;
+        }
+        else{
+            pager.loadNextPage();
+        }
+        return null;
+    }
+
+    /**
+     * Loads a cursor on all the articles of the shop in the background and shows it once available
+     * (cursor mode only)
+     */
+    private void loadArticlesCursor() {
+        final int loadGeneration = ++cursorGeneration;
+        repository.getArticlesCursor(shop.getId(), shop.getListOrder(), new DBCallback<Cursor>() {
+            @Override
+            public void onResult(Cursor cursor) {
+                // The activity may be gone by the time the cursor is loaded,
+                // or a later load may have started (its cursor is newer)
+                if(destroyed || isFinishing() || loadGeneration != cursorGeneration){
+                    cursor.close();
+                    return;
+                }
+                cursorAdapter.swapCursor(cursor);
+                // Scroll to the article opened from a search
+                if(targetArticleId != NO_ARTICLE){
+                    int position = cursorAdapter.getPosition(targetArticleId);
+                    if(position != RecyclerView.NO_POSITION){
+                        getRecyclerView().scrollToPosition(position);
+                    }
+                    targetArticleId = NO_ARTICLE;
+                }
+            }
+        });
+    }
+
+    // ======================
+    // === SORT FUNCTIONS ===
+    // ======================
+
+    /**
+     * Sorts all the articles, once they are all loaded
+     * @param mode What to sort the articles by
+     */
+    private void sortArticles(final SortMode mode) {
+        pager.whenAllLoaded(new Runnable() {
+            @Override
+            public void run() {
+                // The priorities are renumbered in the new order, which becomes the manual order
+                adapter.sortArticles(mode);
+                saveListOrder(ListOrder.MANUAL);
+            }
+        });
+    }
+
+    /**
+     * Shows the articles in another order and keeps it for the shop, once they are all loaded
+     * (the next pages would still come in the previous order)
+     * @param order The new list order
+     */
+    private void setListOrder(final ListOrder order) {
+        pager.whenAllLoaded(new Runnable() {
+            @Override
+            public void run() {
+                adapter.setListOrder(order);
+                saveListOrder(order);
+            }
+        });
+    }
+
+    /**
+     * Keeps the order of the articles for the shop, the next time it is opened the database sorts them
+     * @param order The list order
+     */
+    private void saveListOrder(ListOrder order) {
+        if(shop.getListOrder() != order){
+            shop.setListOrder(order);
+            shopRepository.updateListOrder(shop.getId(), order);
+        }
     }
 
     // ========================
@@ -729,23 +1048,26 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
      * @param position The position of the article in the list
      */
     public void removeArticle(final int position) {
-        final Article article = articles.get(position);
+        final List<Article> removedArticles = new ArrayList<>();
+        removedArticles.add(adapter.getArticle(position));
         // Removes the article from the list
-        articles.remove(position);
-        adapter.notifyItemRemoved(position);
-        // Removes the article from the db
-        datasource.deleteArticle(article);
+        List<Article> articles = new ArrayList<>(adapter.getArticles());
+        articles.remove(removedArticles.get(0));
+        adapter.submitArticles(articles);
+        // Flags the article as deleted in the db, it is only purged once the undo is no longer possible
+        repository.deleteArticles(removedArticles);
         // Show snackbar
         Snackbar snackbar = Snackbar.
                 make(getCoordinatorLayout(), String.format(getString(R.string.snackbar_remove_article),
-                        article.getName()), Snackbar.LENGTH_LONG).
+                        removedArticles.get(0).getName()), Snackbar.LENGTH_LONG).
                 setAction(getString(R.string.snackbar_undo), new View.OnClickListener() {
                     @Override
                     public void onClick(View view) {
                         // Unde the removal
-                        undoRemove(article, position);
+                        undoRemove(removedArticles.get(0), position);
                     }
                 });
+        snackbar.addCallback(getPurgeCallback(removedArticles));
         snackbar.show();
     }
 
@@ -753,8 +1075,20 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
      * Removes all the articles of the shop
      */
     public void removeArticles(){
+        // Removing the whole list needs all the articles
+        if(!adapter.hasSelectedItems() && !pager.isAllLoaded()){
+            pager.whenAllLoaded(new Runnable() {
+                @Override
+                public void run() {
+                    removeArticles();
+                }
+            });
+            return;
+        }
         final List<Article> articlesBackup;
+        final List<Integer> positionsBackup;
         String snackbarText;
+        List<Article> articles = adapter.getArticles();
         // Whether there are articles in the list
         boolean hasArticles = !articles.isEmpty();
 
@@ -762,40 +1096,40 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
         if(adapter.hasSelectedItems()){
             snackbarText = getString(R.string.snackbar_remove_selection);
             articlesBackup = new ArrayList<>();
-            List<Integer> positions = adapter.getSelectedPositions();
-            // Make sure the positions are deleted from biggest to smallest
-            Collections.sort(positions);
-            Collections.reverse(positions);
-            // Remove each selected article
-            for(int position : positions){
-                Article article = articles.get(position);
-                // Back up the article in case the action is undone
-                articlesBackup.add(article);
-                // Remove the article from the list
-                articles.remove(position);
-                // Notify the recyclerView that an item was removed
-                adapter.notifyItemRemoved(position);
-                // Delete the article from the database
-                datasource.deleteArticle(article);
+            positionsBackup = new ArrayList<>();
+            List<Article> remainingArticles = new ArrayList<>(articles.size());
+            // Split the list in a single pass, the removed articles stay from the smallest to the biggest position
+            for(int i = 0; i < articles.size(); i++){
+                Article article = articles.get(i);
+                if(adapter.isSelected(article)){
+                    // Back up the article in case the action is undone
+                    articlesBackup.add(article);
+                    positionsBackup.add(i);
+                }
+                else{
+                    remainingArticles.add(article);
+                }
             }
-            // Reverse back the removed articles list
-            Collections.reverse(articlesBackup);
+            // Show the remaining articles, the removed rows are notified as ranges
+            adapter.submitArticles(remainingArticles);
+            // Flag the articles as deleted in the database, in a single transaction
+            repository.deleteArticles(articlesBackup);
         } // If there are articles
         else if(hasArticles) {
             snackbarText = String.format(getString(R.string.snackbar_remove_all), shop.getName());
             // Backup all articles in case the action is undone
             articlesBackup = new ArrayList<>(articles);
+            positionsBackup = null;
             // Clear the article list
-            articles.clear();
-            // Notify the recyclerView that all items were removed
-            adapter.notifyItemRangeRemoved(0, articlesBackup.size());
-            // Delete all articles of the cuurent shop in the database
-            datasource.deleteAllArticles(shop.getId());
+            adapter.submitArticles(new ArrayList<Article>());
+            // Flag all articles of the current shop as deleted in the database
+            repository.deleteArticles(articlesBackup);
         }
         else{
             // Prepare the snackbar in case there are no articles
             snackbarText = getString(R.string.snackbar_no_articles_to_remove);
             articlesBackup = null;
+            positionsBackup = null;
         }
         // Show snackbar
         Snackbar snackbar = Snackbar.
@@ -806,13 +1140,31 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
                 @Override
                 public void onClick(View view) {
                     // Undo the removal of the removed articles
-                    undoRemove(articlesBackup);
+                    undoRemove(articlesBackup, positionsBackup);
                 }
             });
+            snackbar.addCallback(getPurgeCallback(articlesBackup));
         }
         snackbar.show();
     }
 
+    /**
+     * Creates the snackbar callback purging the removed articles once the undo is no longer possible
+     * @param removedArticles The articles removed from the list
+     * @return The snackbar callback
+     */
+    private Snackbar.Callback getPurgeCallback(final List<Article> removedArticles){
+        return new Snackbar.Callback() {
+            @Override
+            public void onDismissed(Snackbar snackbar, int event) {
+                // Purge the articles unless the undo action was pressed
+                if(event != DISMISS_EVENT_ACTION){
+                    repository.purgeArticles(removedArticles);
+                }
+            }
+        };
+    }
+
     // ======================
     // === UNDO FUNCTIONS ===
     // ======================
@@ -823,25 +1175,44 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
      * @param position The position in which the article was before removal
      */
     private void undoRemove(Article article, int position){
-        // Add removed article to the DB
-        Article newArticle = datasource.createArticle(article.getShopId(),
-                article.getName(), article.getAmount(), article.getMeasure(),
-                article.isStrikethrough(), article.getPriority());
+        // Clear the deleted flag of the article in the DB, it keeps its id
+        List<Article> removedArticles = new ArrayList<>();
+        removedArticles.add(article);
+        repository.restoreArticles(removedArticles);
         // Add the article to the list at the right position
-        articles.add(position, newArticle);
-        // Notify the recyclerView that an item was inserted
-        adapter.notifyItemInserted(position);
+        // (the list may have shrunk in the meantime)
+        List<Article> articles = new ArrayList<>(adapter.getArticles());
+        articles.add(Math.min(position, articles.size()), article);
+        adapter.submitArticles(articles);
     }
 
     /**
      * Undo the removal of multiple articles
      * @param removedArticles The removed articles to add back to the list
+     * @param positions The sorted positions of the articles before removal, null if the whole list was removed
      */
-    private void undoRemove(List<Article> removedArticles){
+    private void undoRemove(List<Article> removedArticles, List<Integer> positions){
+        // Clear the deleted flag of all removed articles in the DB
+        repository.restoreArticles(removedArticles);
         // Add all removed articles back to the list
-        for (Article article : removedArticles){
-            addArticle(article);
+        List<Article> currentArticles = adapter.getArticles();
+        List<Article> articles = new ArrayList<>(currentArticles.size() + removedArticles.size());
+        int current = 0;
+        if(positions != null){
+            // Merge the lists in a single pass, each article goes back at its old position
+            for(int i = 0; i < removedArticles.size(); i++){
+                while(articles.size() < positions.get(i) && current < currentArticles.size()){
+                    articles.add(currentArticles.get(current++));
+                }
+                articles.add(removedArticles.get(i));
+            }
         }
+        articles.addAll(currentArticles.subList(current, currentArticles.size()));
+        if(positions == null){
+            articles.addAll(removedArticles);
+        }
+        // Only the inserted rows are animated
+        adapter.submitArticles(articles);
     }
 
     // =======================
@@ -849,29 +1220,69 @@ public class ArticleActivity extends RecyclerActivity implements ArticleManager
     // =======================
 
     /**
-     * Copy articles (all or selected) to the clipboard
+     * Copies the selected articles (or all articles if none is selected) to the clipboard
+     * @param format The format of the copied text
      */
-    private void copyArticlesToClipboard(){
-        String snackbarText;
-        boolean hasArticles = !articles.isEmpty();
-
-        // If there are articles in the list, copy them (or the selection)
-        if(hasArticles){
-            snackbarText = getString(R.string.snackbar_copy_to_clipboard);
-            //  Add details to clipboard
-            ClipData clip = ClipData.newPlainText("Copied Details", adapter.getArticlesToString());
-            clipboard.setPrimaryClip(clip);
+    private void copyArticlesToClipboard(final ExportFormat format){
+        // Copying the whole list needs all the articles
+        if(!adapter.hasSelectedItems() && !pager.isAllLoaded()){
+            pager.whenAllLoaded(new Runnable() {
+                @Override
+                public void run() {
+                    copyArticlesToClipboard(format);
+                }
+            });
+            return;
         }
-        else{
-            // Prepare the snackbar in case there are no articles
-            snackbarText = getString(R.string.snackbar_no_articles_to_copy);
+        // If there are no articles in the list, there is nothing to copy
+        if(adapter.getArticles().isEmpty()){
+            Snackbar.make(getCoordinatorLayout(), getString(R.string.snackbar_no_articles_to_copy),
+                    Snackbar.LENGTH_SHORT).show();
+            return;
         }
+        // The text is written in the background
+        adapter.exportArticles(format, new ExportCallback() {
+            @Override
+            public void onExported(String text) {
+                //  Add details to clipboard
+                ClipData clip = ClipData.newPlainText("Copied Details", text);
+                clipboard.setPrimaryClip(clip);
+                //  Add snackbar notification
+                Snackbar.make(getCoordinatorLayout(), getString(R.string.snackbar_copy_to_clipboard),
+                        Snackbar.LENGTH_SHORT).show();
+            }
+        });
+    }
 
-        //  Add snackbar notification
-        Snackbar snackbar = Snackbar.make(
-                getCoordinatorLayout(),
-                snackbarText,
-                Snackbar.LENGTH_SHORT);
-        snackbar.show();
+    /**
+     * Shares the selected articles (or all articles if none is selected) with another app, on a single line
+     */
+    private void shareArticles(){
+        // Sharing the whole list needs all the articles
+        if(!adapter.hasSelectedItems() && !pager.isAllLoaded()){
+            pager.whenAllLoaded(new Runnable() {
+                @Override
+                public void run() {
+                    shareArticles();
+                }
+            });
+            return;
+        }
+        // If there are no articles in the list, there is nothing to share
+        if(adapter.getArticles().isEmpty()){
+            Snackbar.make(getCoordinatorLayout(), getString(R.string.snackbar_no_articles_to_share),
+                    Snackbar.LENGTH_SHORT).show();
+            return;
+        }
+        // The text is written in the background
+        adapter.exportArticles(ExportFormat.COMPACT, new ExportCallback() {
+            @Override
+            public void onExported(String text) {
+                Intent intent = new Intent(Intent.ACTION_SEND)
+                        .setType("text/plain")
+                        .putExtra(Intent.EXTRA_TEXT, text);
+                startActivity(Intent.createChooser(intent, getString(R.string.action_share)));
+            }
+        });
     }
 }
@@ -6,10 +6,14 @@ import android.support.design.widget.FloatingActionButton;
 import android.view.Menu;
 import android.view.MenuItem;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import be.oreel.masi.shoppinglist.adapter.ShopManager;
 import be.oreel.masi.shoppinglist.R;
 import be.oreel.masi.shoppinglist.adapter.ShopAdapter;
-import be.oreel.masi.shoppinglist.db.ShopDataSource;
+import be.oreel.masi.shoppinglist.db.DBCallback;
+import be.oreel.masi.shoppinglist.db.ShopRepository;
 import be.oreel.masi.shoppinglist.model.Shop;
 
 /**
@@ -21,7 +25,7 @@ public class MainActivity extends RecyclerActivity implements ShopManager {
     // === VARIABLES ===
     // =================
 
-    private ShopDataSource datasource;
+    private ShopRepository shopRepository;
 
     // ================
     // === ONCREATE ===
@@ -42,7 +46,13 @@ public class MainActivity extends RecyclerActivity implements ShopManager {
                 new Shop(getString(R.string.spar), R.drawable.spar_logo),
         };
 
-        datasource = new ShopDataSource(this);
+        // Load the shops in the background, opening a shop is then a lookup in memory
+        shopRepository = ShopRepository.getInstance(this);
+        List<String> shopNames = new ArrayList<>(shops.length);
+        for(Shop shop : shops){
+            shopNames.add(shop.getName());
+        }
+        shopRepository.loadShops(shopNames);
 
         // Set the logo adapter to the recyclerView
         getRecyclerView().setAdapter(new ShopAdapter(this, shops));
@@ -75,30 +85,6 @@ public class MainActivity extends RecyclerActivity implements ShopManager {
         }
     }
 
-    // =========================================
-    // === OVERRIDE BASIC ACTIVITY FUNCTIONS ===
-    // =========================================
-
-    /**
-     * Resume of the activity
-     */
-    @Override
-    protected void onResume() {
-        // Opens the database
-        datasource.open();
-        super.onResume();
-    }
-
-    /**
-     * Pause of the activity
-     */
-    @Override
-    protected void onPause() {
-        // Close the database
-        datasource.close();
-        super.onPause();
-    }
-
     // ============================
     // === ACTION BAR FUNCTIONS ===
     // ============================
@@ -116,6 +102,10 @@ public class MainActivity extends RecyclerActivity implements ShopManager {
         if (id == R.id.action_exit_app) {
             leaveApp();
         }
+        // Search the articles of all the shops
+        else if (id == R.id.action_search) {
+            startActivity(new Intent(this, SearchActivity.class));
+        }
 
         return super.onOptionsItemSelected(item);
     }
@@ -141,12 +131,18 @@ public class MainActivity extends RecyclerActivity implements ShopManager {
      * @param shopName The shop name
      */
     public void openArticleActivity(String shopName){
-        // Create the intent to open the ArticleActivity
-        Intent intent = new Intent(this, ArticleActivity.class);
-        intent.putExtra(getString(R.string.bundle_shop_id), datasource.getShop(shopName));
-        // Start the ArticleActivity
-        startActivity(intent);
-        // Set the right to left animation
-        overridePendingTransition(R.anim.right_to_left_main, R.anim.left_to_right_main);
+        // The shop is taken from memory (once the shops are loaded)
+        shopRepository.getShop(shopName, new DBCallback<Shop>() {
+            @Override
+            public void onResult(Shop shop) {
+                // Create the intent to open the ArticleActivity
+                Intent intent = new Intent(MainActivity.this, ArticleActivity.class);
+                intent.putExtra(getString(R.string.bundle_shop_id), shop);
+                // Start the ArticleActivity
+                startActivity(intent);
+                // Set the right to left animation
+                overridePendingTransition(R.anim.right_to_left_main, R.anim.left_to_right_main);
+            }
+        });
     }
 }
@@ -0,0 +1,204 @@
+package be.oreel.masi.shoppinglist.activity;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.support.design.widget.FloatingActionButton;
+import android.support.v7.widget.DividerItemDecoration;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.SearchView;
+import android.view.Menu;
+import android.view.MenuItem;
+
+import java.util.Collections;
+import java.util.List;
+
+import be.oreel.masi.shoppinglist.R;
+import be.oreel.masi.shoppinglist.adapter.SearchResultAdapter;
+import be.oreel.masi.shoppinglist.adapter.SearchResultManager;
+import be.oreel.masi.shoppinglist.db.ArticleRepository;
+import be.oreel.masi.shoppinglist.db.DBCallback;
+import be.oreel.masi.shoppinglist.model.SearchResult;
+
+/**
+ * Activity searching the articles of all the shops by name, while the user types
+ */
+public class SearchActivity extends RecyclerActivity implements SearchResultManager {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    // The number of results shown, more words narrow down the search
+    private static final int MAX_RESULTS = 50;
+    // How long the typing has to pause before the search runs, in milliseconds
+    private static final long SEARCH_DELAY = 150;
+
+    private ArticleRepository repository;
+    private SearchResultAdapter adapter;
+    private final Handler handler = new Handler();
+    // The text currently typed
+    private String query = "";
+    // Incremented on every search, so that the results of an outdated search are dropped
+    private int generation;
+    private final Runnable searchTask = new Runnable() {
+        @Override
+        public void run() {
+            search();
+        }
+    };
+
+    // ================
+    // === ONCREATE ===
+    // ================
+
+    /**
+     * Creates the SearchActivity
+     * @param savedInstanceState The saved instance state
+     */
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        // Set the repository
+        repository = ArticleRepository.getInstance(this);
+        // Set the adapter, it starts with no results
+        adapter = new SearchResultAdapter(this);
+        getRecyclerView().setAdapter(adapter);
+        // Add the line dividers between the recyclerView Items
+        getRecyclerView().addItemDecoration(new DividerItemDecoration(
+                getRecyclerView().getContext(),
+                LinearLayoutManager.VERTICAL));
+    }
+
+    /**
+     * Destruction of the activity
+     */
+    @Override
+    protected void onDestroy() {
+        // Drop the search waiting for the typing to pause
+        handler.removeCallbacks(searchTask);
+        super.onDestroy();
+    }
+
+    // =================================================
+    // === ABSTRACT PARENT FUNCTIONS IMPLEMENTATIONS ===
+    // =================================================
+
+    /**
+     * Sets the toolbar
+     */
+    @Override
+    protected void setupToolbar() {
+        setSupportActionBar(getToolbar());
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setTitle(getString(R.string.action_search));
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+        }
+    }
+
+    /**
+     * Hides the FAB
+     */
+    @Override
+    protected void setupFab() {
+        FloatingActionButton fab = getFab();
+        if(fab != null){
+            // Hides the fab
+            fab.hide();
+        }
+    }
+
+    // ============================
+    // === ACTION BAR FUNCTIONS ===
+    // ============================
+
+    /**
+     * Creates the menu in the action bar, with the search field open
+     * @param menu The menu
+     * @return True
+     */
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.search_menu, menu);
+        SearchView searchView = (SearchView) menu.findItem(R.id.action_search).getActionView();
+        searchView.setIconifiedByDefault(false);
+        searchView.setQueryHint(getString(R.string.search_hint));
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String text) {
+                // Search right away
+                query = text;
+                handler.removeCallbacks(searchTask);
+                search();
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String text) {
+                // Search once the typing pauses
+                query = text;
+                handler.removeCallbacks(searchTask);
+                handler.postDelayed(searchTask, SEARCH_DELAY);
+                return true;
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Sets the actions to perform for each element in the action bar
+     * @param item The menu item being pressed
+     * @return The parent method return
+     */
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        // Go back to the main activity
+        if (item.getItemId() == android.R.id.home) {
+            onBackPressed();
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    // ========================
+    // === SEARCH FUNCTIONS ===
+    // ========================
+
+    /**
+     * Searches the typed text in the background and shows the results once available
+     */
+    private void search() {
+        final int searchGeneration = ++generation;
+        if(query.trim().isEmpty()){
+            adapter.setResults(Collections.<SearchResult>emptyList());
+            return;
+        }
+        repository.searchArticles(query, MAX_RESULTS, new DBCallback<List<SearchResult>>() {
+            @Override
+            public void onResult(List<SearchResult> results) {
+                // The text has changed in the meantime, its own results will follow
+                if(searchGeneration != generation){
+                    return;
+                }
+                adapter.setResults(results);
+            }
+        });
+    }
+
+    /**
+     * Opens the shop of a found article, scrolled to the article
+     * @param result The found article
+     */
+    @Override
+    public void openSearchResult(SearchResult result) {
+        // Create the intent to open the ArticleActivity
+        Intent intent = new Intent(this, ArticleActivity.class);
+        intent.putExtra(getString(R.string.bundle_shop_id), result.getShop());
+        intent.putExtra(getString(R.string.bundle_article_id), result.getArticle().getId());
+        // Start the ArticleActivity
+        startActivity(intent);
+        // Set the right to left animation
+        overridePendingTransition(R.anim.right_to_left_main, R.anim.left_to_right_main);
+    }
+}
@@ -1,21 +1,32 @@
 package be.oreel.masi.shoppinglist.adapter;
 
 import android.graphics.Paint;
-import android.support.design.widget.CoordinatorLayout;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v7.util.DiffUtil;
 import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.ImageButton;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 import be.oreel.masi.shoppinglist.R;
 import be.oreel.masi.shoppinglist.model.Article;
+import be.oreel.masi.shoppinglist.model.ArticlePriorities;
+import be.oreel.masi.shoppinglist.model.ArticleExporter;
+import be.oreel.masi.shoppinglist.model.ArticleSorter;
+import be.oreel.masi.shoppinglist.model.ExportFormat;
+import be.oreel.masi.shoppinglist.model.ListOrder;
+import be.oreel.masi.shoppinglist.model.LongHashSet;
+import be.oreel.masi.shoppinglist.model.SortMode;
 import be.oreel.masi.shoppinglist.model.ToolbarMode;
 
 /**
@@ -27,10 +38,31 @@ public class ArticleAdapter extends RecyclerView.Adapter<ArticleAdapter.ViewHold
     // === VARIABLES ===
     // =================
 
+    // The partial rebinds of a row
+    private static final Object PAYLOAD_SELECTION = new Object();
+    private static final Object PAYLOAD_STRIKETHROUGH = new Object();
+    private static final Object PAYLOAD_AMOUNT = new Object();
+
+    // The list differences are computed one after the other, off the main thread
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor();
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+    // The exports are written off the main thread, without holding up the list differences
+    private static final Executor EXPORT_EXECUTOR = Executors.newSingleThreadExecutor();
+
     private ArticleManager articleManager;
+    // The immutable list currently shown
     private List<Article> articleDataset;
-    private List<ViewHolder> selectedItems;
-    private boolean reverseSort;
+    // The last submitted list, shown once its differences are computed
+    private List<Article> latestDataset;
+    // Incremented on every submission, so that outdated differences are dropped
+    private int generation;
+    // The ids of the selected articles, they stay selected when their viewHolder is recycled
+    private LongHashSet selectedIds;
+    // The last sort, pressing it again reverses the order
+    private SortMode sortMode;
+    private boolean sortDescending;
+    // The order in which the articles are kept, see ListOrder
+    private ListOrder listOrder = ListOrder.MANUAL;
 
     // ===================
     // === CONSTRUCTOR ===
@@ -39,13 +71,12 @@ public class ArticleAdapter extends RecyclerView.Adapter<ArticleAdapter.ViewHold
     /**
      * The conctructor
      * @param articleManager The article manager
-     * @param articleDataset A list of articles
      */
-    public ArticleAdapter(ArticleManager articleManager, List<Article> articleDataset) {
+    public ArticleAdapter(ArticleManager articleManager) {
         this.articleManager = articleManager;
-        this.articleDataset = articleDataset;
-        selectedItems = new ArrayList<>();
-        reverseSort = false;
+        this.articleDataset = Collections.emptyList();
+        this.latestDataset = articleDataset;
+        selectedIds = new LongHashSet();
     }
 
     // ==================
@@ -60,11 +91,15 @@ public class ArticleAdapter extends RecyclerView.Adapter<ArticleAdapter.ViewHold
         public LinearLayout contentParent;
         public TextView tvName;
         public TextView tvAmount;
+        public ImageButton btnDecrease;
+        public ImageButton btnIncrease;
         public ViewHolder(LinearLayout v) {
             super(v);
             contentParent = v;
             tvName = (TextView) v.findViewById(R.id.article_name);
             tvAmount = (TextView) v.findViewById(R.id.article_amount);
+            btnDecrease = (ImageButton) v.findViewById(R.id.article_amount_decrease);
+            btnIncrease = (ImageButton) v.findViewById(R.id.article_amount_increase);
         }
     }
 
@@ -82,44 +117,8 @@ public class ArticleAdapter extends RecyclerView.Adapter<ArticleAdapter.ViewHold
     public ArticleAdapter.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
         LinearLayout v = (LinearLayout) LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.article_template, parent, false);
-        return new ViewHolder(v);
-    }
-
-    /**
-     * Replaces the contents of a view (invoked by the layout manager)
-     * @param holder The viewHolder being bind
-     * @param position The position of the viewHolder in the list
-     */
-    @Override
-    public void onBindViewHolder(final ViewHolder holder, final int position) {
-        // getAdapterPosition is used instead of position, since it gives back the right position!
-        // Get the targeted article
-        Article article = articleDataset.get(holder.getAdapterPosition());
-        // Set the fields of the article in the viewHolder
-        holder.tvName.setText(article.getName());
-        // Get the amount & measure
-        String measure = article.getMeasure();
-        measure = measure != null ? measure : "";
-        String amount = article.getAmount() + measure;
-        // Set the concatenation of the two in the amount field
-        holder.tvAmount.setText(amount);
-        // Put the textViews in a list
-        List<TextView> textViews = new ArrayList<>();
-        textViews.add(holder.tvName);
-        textViews.add(holder.tvAmount);
-
-        // Strike through if it has to be
-        if(article.isStrikethrough()){
-            for (TextView tv : textViews) {
-                tv.setPaintFlags(tv.getPaintFlags() | Paint.STRIKE_THRU_TEXT_FLAG);
-            }
-        }
-        else{
-            // Unstrike in case a viewHolder gets recycled
-            for (TextView tv : textViews) {
-                tv.setPaintFlags(tv.getPaintFlags() & (~ Paint.STRIKE_THRU_TEXT_FLAG));
-            }
-        }
+        final ViewHolder holder = new ViewHolder(v);
+        // The listeners are created once per viewHolder instead of on every bind
 
         // Toggle the selection on a long press in toolbar mode normal
         holder.contentParent.setOnLongClickListener(new View.OnLongClickListener() {
@@ -141,6 +140,93 @@ public class ArticleAdapter extends RecyclerView.Adapter<ArticleAdapter.ViewHold
                 }
             }
         });
+
+        // Step the amount down or up with the buttons of the row
+        holder.btnDecrease.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                stepAmount(holder, -1);
+            }
+        });
+        holder.btnIncrease.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                stepAmount(holder, 1);
+            }
+        });
+        return holder;
+    }
+
+    /**
+     * Replaces the contents of a view (invoked by the layout manager)
+     * @param holder The viewHolder being bind
+     * @param position The position of the viewHolder in the list
+     */
+    @Override
+    public void onBindViewHolder(final ViewHolder holder, final int position) {
+        // Get the targeted article, the position is the one being bound
+        // (getAdapterPosition is for the listeners, it can differ while updates are pending)
+        Article article = articleDataset.get(position);
+        // Set the fields of the article in the viewHolder
+        holder.tvName.setText(article.getName());
+        // Set the amount & measure, formatted once by the article
+        holder.tvAmount.setText(article.getAmountText());
+        // Strike through if it has to be, unstrike in case a viewHolder gets recycled
+        setStrikethrough(holder, article.isStrikethrough());
+        // Highlight the row if the article is selected
+        holder.contentParent.setSelected(selectedIds.contains(article.getId()));
+    }
+
+    /**
+     * Replaces only the parts of a view which have changed (invoked by the layout manager)
+     * @param holder The viewHolder being bind
+     * @param position The position of the viewHolder in the list
+     * @param payloads What has changed, a full bind is done if empty
+     */
+    @Override
+    public void onBindViewHolder(ViewHolder holder, int position, List<Object> payloads) {
+        if(payloads.isEmpty()){
+            onBindViewHolder(holder, position);
+            return;
+        }
+        Article article = articleDataset.get(position);
+        // Indexed, a for-each loop would allocate an iterator on every bind
+        for(int i = 0; i < payloads.size(); i++){
+            Object payload = payloads.get(i);
+            if(payload == PAYLOAD_SELECTION){
+                holder.contentParent.setSelected(selectedIds.contains(article.getId()));
+            }
+            else if(payload == PAYLOAD_STRIKETHROUGH){
+                setStrikethrough(holder, article.isStrikethrough());
+            }
+            else if(payload == PAYLOAD_AMOUNT){
+                holder.tvAmount.setText(article.getAmountText());
+            }
+        }
+    }
+
+    /**
+     * Strikes or unstrikes the text of a viewHolder
+     * @param holder The viewHolder
+     * @param strikethrough Whether or not the text is strikethrough
+     */
+    private static void setStrikethrough(ViewHolder holder, boolean strikethrough){
+        setStrikethrough(holder.tvName, strikethrough);
+        setStrikethrough(holder.tvAmount, strikethrough);
+    }
+
+    /**
+     * Strikes or unstrikes the text of a textView
+     * @param tv The textView
+     * @param strikethrough Whether or not the text is strikethrough
+     */
+    private static void setStrikethrough(TextView tv, boolean strikethrough){
+        if(strikethrough){
+            tv.setPaintFlags(tv.getPaintFlags() | Paint.STRIKE_THRU_TEXT_FLAG);
+        }
+        else{
+            tv.setPaintFlags(tv.getPaintFlags() & (~ Paint.STRIKE_THRU_TEXT_FLAG));
+        }
     }
 
     /**
@@ -152,6 +238,137 @@ public class ArticleAdapter extends RecyclerView.Adapter<ArticleAdapter.ViewHold
         return articleDataset.size();
     }
 
+    // ======================
+    // === LIST FUNCTIONS ===
+    // ======================
+
+    /**
+     * Returns the last submitted list of articles, to build the next list from
+     * @return The last submitted list of articles (immutable)
+     */
+    public List<Article> getArticles(){
+        return latestDataset;
+    }
+
+    /**
+     * Returns the article shown at a position
+     * @param position The position in the recyclerView
+     * @return The article at that position
+     */
+    public Article getArticle(int position){
+        return articleDataset.get(position);
+    }
+
+    /**
+     * Shows a new list of articles
+     * The differences with the current list are computed in the background,
+     * only the resulting insertions, removals and moves are dispatched to the recyclerView
+     * @param articles The new list of articles
+     */
+    public void submitArticles(List<Article> articles){
+        submitArticles(articles, null);
+    }
+
+    /**
+     * Shows a new list of articles, then runs an action
+     * @param articles The new list of articles
+     * @param onShown The action to run once the list is shown (e.g. scrolling to an article),
+     *                dropped if a newer list is submitted first, may be null
+     */
+    public void submitArticles(List<Article> articles, final Runnable onShown){
+        final List<Article> oldDataset = articleDataset;
+        final List<Article> newDataset = Collections.unmodifiableList(new ArrayList<>(articles));
+        final int submitGeneration = ++generation;
+        latestDataset = newDataset;
+        DIFF_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final DiffUtil.DiffResult result = DiffUtil.calculateDiff(
+                        new ArticleDiffCallback(oldDataset, newDataset));
+                MAIN_HANDLER.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        // A newer list has been submitted in the meantime, it will be shown instead
+                        if(submitGeneration != generation){
+                            return;
+                        }
+                        articleDataset = newDataset;
+                        result.dispatchUpdatesTo(ArticleAdapter.this);
+                        if(onShown != null){
+                            onShown.run();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Moves an article right away (while it is being dragged)
+     * @param fromPosition The current position of the article
+     * @param toPosition The new position of the article
+     */
+    public void moveArticle(int fromPosition, int toPosition){
+        boolean pending = latestDataset != articleDataset;
+        List<Article> articles = new ArrayList<>(articleDataset);
+        Article moved = articles.remove(fromPosition);
+        articles.add(toPosition, moved);
+        articleDataset = Collections.unmodifiableList(articles);
+        notifyItemMoved(fromPosition, toPosition);
+        if(!pending){
+            latestDataset = articleDataset;
+            return;
+        }
+        // A pending list was compared with the list before the move: move the article in it as
+        // well, right after the article it now follows, and compare it again
+        List<Article> latest = new ArrayList<>(latestDataset);
+        int index = indexOf(latest, moved.getId());
+        if(index != -1){
+            latest.remove(index);
+            int previous = toPosition > 0 ? indexOf(latest, articles.get(toPosition - 1).getId()) : -1;
+            latest.add(previous != -1 ? previous + 1 : Math.min(toPosition, latest.size()), moved);
+        }
+        submitArticles(latest);
+    }
+
+    /**
+     * Returns the position of an article in a list
+     * @param articles The list
+     * @param id The id of the article
+     * @return The position of the article, -1 if it isn't in the list
+     */
+    private static int indexOf(List<Article> articles, long id){
+        for(int i = 0; i < articles.size(); i++){
+            if(articles.get(i).getId() == id){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Steps the amount of the article of a row, in toolbar mode normal
+     * A few quick steps are written to the database once (see ArticleRepository.updateArticle)
+     * @param holder The viewHolder of the row
+     * @param step The amount to add, negative to remove (the amount stays at least 1)
+     */
+    private void stepAmount(ViewHolder holder, int step){
+        int position = holder.getAdapterPosition();
+        if(position == RecyclerView.NO_POSITION ||
+                articleManager.getToolbarMode() != ToolbarMode.NORMAL){
+            return;
+        }
+        Article article = articleDataset.get(position);
+        int amount = article.getAmount();
+        article.setAmount(amount + step);
+        if(article.getAmount() == amount){
+            return;
+        }
+        // Only rebind the amount of the row
+        notifyItemChanged(position, PAYLOAD_AMOUNT);
+        articleManager.updateArticle(article);
+    }
+
     // ================================
     // === SELECTED ITEMS FUNCTIONS ===
     // ================================
@@ -160,47 +377,54 @@ public class ArticleAdapter extends RecyclerView.Adapter<ArticleAdapter.ViewHold
      * Toggle strikethrough on all selected elements
      */
     public void toggleStrikethrough(){
+        List<Article> articles = new ArrayList<>(selectedIds.size());
         // Strike through all selected items
-        for (ViewHolder holder : selectedItems){
+        for (int position : getSelectedPositions()){
             // Get the selected article
-            Article article = articleDataset.get(holder.getAdapterPosition());
-            boolean isStrikeThrough = article.isStrikethrough();
-            // If the article has to be strikethrough, do it
-            if(isStrikeThrough){
-                holder.tvName.setPaintFlags(holder.tvName.getPaintFlags() & (~ Paint.STRIKE_THRU_TEXT_FLAG));
-                holder.tvAmount.setPaintFlags(holder.tvAmount.getPaintFlags() & (~ Paint.STRIKE_THRU_TEXT_FLAG));
-            } // If not, remove the strikethrough
-            else{
-                holder.tvName.setPaintFlags(holder.tvName.getPaintFlags() | Paint.STRIKE_THRU_TEXT_FLAG);
-                holder.tvAmount.setPaintFlags(holder.tvAmount.getPaintFlags() | Paint.STRIKE_THRU_TEXT_FLAG);
-            }
-
+            Article article = articleDataset.get(position);
             // Update the strikethrough state of the article
-            article.setStrikethrough(!isStrikeThrough);
-            // Update the strikethrough state of the article in the datebase
-            articleManager.updateArticle(article);
+            article.setStrikethrough(!article.isStrikethrough());
+            articles.add(article);
+            // Only rebind the strikethrough of the row
+            notifyItemChanged(position, PAYLOAD_STRIKETHROUGH);
+        }
+        // Update the strikethrough state of all the articles in the database at once
+        articleManager.toggleStrikethrough(articles);
+        // The checked articles move to the end of the list
+        if(listOrder == ListOrder.CHECKED_LAST){
+            applyListOrder();
         }
     }
 
     /**
      * Returns the first selected item
-     * @return The first selected item
+     * @return The first selected item, or RecyclerView.NO_POSITION if it isn't shown
      */
     public int getSelectedItemPosition(){
         // Returns the first selected item
-        return selectedItems.get(0).getAdapterPosition();
+        for(int i = 0; i < articleDataset.size(); i++){
+            if(selectedIds.contains(articleDataset.get(i).getId())){
+                return i;
+            }
+        }
+        return RecyclerView.NO_POSITION;
     }
 
     /**
      * Clears list item selection
      */
     public void clearSelections(){
-        // Unselect all viewHolders
-        for(ViewHolder holder : selectedItems){
-            holder.contentParent.setSelected(false);
+        if(selectedIds.isEmpty()){
+            return;
+        }
+        // Find the rows to unselect before forgetting the selection
+        List<Integer> positions = getSelectedPositions();
+        // Clear the set of selected ids
+        selectedIds.clear();
+        // Unselect the rows
+        for(int position : positions){
+            notifyItemChanged(position, PAYLOAD_SELECTION);
         }
-        // Clear the list of selected items
-        selectedItems.clear();
     }
 
     /**
@@ -208,95 +432,251 @@ public class ArticleAdapter extends RecyclerView.Adapter<ArticleAdapter.ViewHold
      * @param holder The viewHolder
      */
     private void toggleSelection(ViewHolder holder){
-        // Toggle selection
-        boolean isSelected = holder.contentParent.isSelected();
-        // If the holder was already selected, unselect it
+        int position = holder.getAdapterPosition();
+        if(position == RecyclerView.NO_POSITION){
+            return;
+        }
+        long id = articleDataset.get(position).getId();
+        // Toggle selection: if the article was already selected, unselect it, if not, select it
+        boolean isSelected = !selectedIds.remove(id);
         if(isSelected){
-            // Remove the holder from the list of selected items
-            selectedItems.remove(holder);
-        } // If not, select it
-        else{
-            // Add the holder to the list of selected items
-            selectedItems.add(holder);
+            selectedIds.add(id);
         }
         // Change the selection state
-        holder.contentParent.setSelected(!isSelected);
+        holder.contentParent.setSelected(isSelected);
 
         // Change ToolbarMode if necessary
-        if(articleManager.getToolbarMode() != ToolbarMode.MULTIPLE && selectedItems.size() > 1){
-            articleManager.setToolbarMode(ToolbarMode.MULTIPLE);
-        }
-        else if(selectedItems.size() == 0){
-            articleManager.setToolbarMode(ToolbarMode.NORMAL);
+        if(articleManager.getToolbarMode() != getSelectionToolbarMode()){
+            articleManager.setToolbarMode(getSelectionToolbarMode());
         }
-        else if(selectedItems.size() == 1){
-            articleManager.setToolbarMode(ToolbarMode.DETAIL);
+    }
+
+    /**
+     * Returns the toolbar mode matching the number of selected items
+     * @return The toolbar mode of the current selection
+     */
+    public ToolbarMode getSelectionToolbarMode(){
+        return selectedIds.isEmpty() ? ToolbarMode.NORMAL :
+                selectedIds.size() == 1 ? ToolbarMode.DETAIL : ToolbarMode.MULTIPLE;
+    }
+
+    /**
+     * Returns the ids of the selected articles, to keep the selection over a configuration change
+     * @return The ids of the selected articles
+     */
+    public long[] getSelectedIds(){
+        return selectedIds.toArray();
+    }
+
+    /**
+     * Selects the articles with the given ids
+     * @param ids The ids of the articles to select
+     */
+    public void setSelectedIds(long[] ids){
+        selectedIds.clear();
+        for(long id : ids){
+            selectedIds.add(id);
         }
+        notifyItemRangeChanged(0, articleDataset.size(), PAYLOAD_SELECTION);
     }
 
     /**
-     * Sort articles by name
+     * Sort the articles, pressing the same sort again reverses the order
+     * The new order is saved at once
+     * @param mode What to sort the articles by
      */
-    public void sortArticlesByName(){
+    public void sortArticles(SortMode mode){
+        // Reverse the sort if pressed again
+        sortDescending = mode == sortMode && !sortDescending;
+        sortMode = mode;
+        // The sort becomes the manual order
+        listOrder = ListOrder.MANUAL;
         // If there are articles in the list
-        if(!articleDataset.isEmpty()){
-            // Sort the articles by name
-            Collections.sort(articleDataset, new Comparator<Article>(){
-                public int compare(Article articleA, Article articleB) {
-                    return articleA.getName().compareTo(articleB.getName());
-                }
-            });
-            // Reverse the sort if pressed again
-            if(reverseSort){
-                Collections.reverse(articleDataset);
+        if(!latestDataset.isEmpty()){
+            List<Article> articles = new ArrayList<>(latestDataset);
+            ArticleSorter.sort(articles, mode, sortDescending);
+            // Save the new order, all the changed priorities in a single transaction
+            List<Article> changedArticles = ArticlePriorities.rebalance(articles);
+            if(!changedArticles.isEmpty()){
+                articleManager.updatePriorities(changedArticles);
             }
-            reverseSort = !reverseSort;
-            // Notify the recyclerView that the list items have changed
-            notifyItemRangeChanged(0, articleDataset.size());
+            // Only the moved rows are animated
+            submitArticles(articles);
         }
     }
 
     /**
-     * Get the articles (all or selection) in string form
-     * @return The list of articles in a string
+     * Writes the selected articles (or all the articles if none is selected) as text, off the main thread
+     * @param format The format of the text
+     * @param callback Receives the text on the main thread
      */
-    public String getArticlesToString() {
-        String articlesCopy = "";
-
-        // If some articles are selected, create the string of only that selection
-        if (selectedItems.size() > 0) {
-            // For all selected items, add the article string
-            for (ArticleAdapter.ViewHolder holder : selectedItems) {
-                articlesCopy += articleDataset.get(holder.getAdapterPosition()).toString() + "\n";
+    public void exportArticles(final ExportFormat format, final ExportCallback callback) {
+        // Take a copy of the articles on the main thread, they can be changed while the text is written
+        final List<Article> articles;
+        if (!selectedIds.isEmpty()) {
+            List<Integer> positions = getSelectedPositions();
+            articles = new ArrayList<>(positions.size());
+            for (int position : positions) {
+                articles.add(new Article(articleDataset.get(position)));
             }
-        } // If not, create the string based of all articles in the list
+        }
         else {
-            // For all articles, add the article string
-            for (Article article : articleDataset) {
-                articlesCopy += article.toString() + "\n";
+            articles = new ArrayList<>(latestDataset.size());
+            for (Article article : latestDataset) {
+                articles.add(new Article(article));
             }
         }
-        return articlesCopy;
+        EXPORT_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final String text = ArticleExporter.export(articles, format);
+                MAIN_HANDLER.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onExported(text);
+                    }
+                });
+            }
+        });
     }
 
     /**
-     * Save all list item positions
+     * Returns whether the priorities follow the positions of the articles, or the list is not in
+     * manual order: savePositions has nothing to do then
+     * @return Whether the positions of the articles are saved
+     */
+    public boolean arePositionsSaved(){
+        return listOrder != ListOrder.MANUAL || ArticlePriorities.isOrdered(latestDataset);
+    }
+
+    /**
+     * Save the list item positions if they no longer match the priorities (e.g. after a sort)
      */
     public void savePositions(){
-        // Save all positions to the db
-        for (int i = 0; i < articleDataset.size(); i++){
-            Article article = articleDataset.get(i);
-            article.setPriority(i);
-            articleManager.updateArticle(article);
+        // Nothing to do if the priorities already follow the list, or if the list is not in manual order
+        if(arePositionsSaved()){
+            return;
+        }
+        // Renumber the list and save the articles which have changed at once
+        List<Article> movedArticles = ArticlePriorities.rebalance(latestDataset);
+        if(!movedArticles.isEmpty()){
+            articleManager.updatePriorities(movedArticles);
+        }
+    }
+
+    /**
+     * Returns the order in which the articles are kept
+     * @return The list order
+     */
+    public ListOrder getListOrder(){
+        return listOrder;
+    }
+
+    /**
+     * Shows the articles in another order, their priorities (the manual order) are not changed
+     * @param order The new list order
+     */
+    public void setListOrder(ListOrder order){
+        listOrder = order;
+        sortInListOrder();
+    }
+
+    /**
+     * Moves the articles back in the list order after an edit (e.g. a renamed article in a list
+     * sorted by name), nothing to do in manual order
+     */
+    public void applyListOrder(){
+        if(listOrder != ListOrder.MANUAL){
+            sortInListOrder();
+        }
+    }
+
+    /**
+     * Adds an article to the list, at the end or at its place in a sorted list
+     * @param article The new article
+     */
+    public void addArticle(Article article){
+        List<Article> articles = new ArrayList<>(latestDataset.size() + 1);
+        articles.addAll(latestDataset);
+        articles.add(article);
+        if(listOrder != ListOrder.MANUAL){
+            ArticleSorter.sort(articles, listOrder);
+        }
+        submitArticles(articles);
+    }
+
+    /**
+     * Sorts the shown articles in the list order
+     */
+    private void sortInListOrder(){
+        if(!latestDataset.isEmpty()){
+            List<Article> articles = new ArrayList<>(latestDataset);
+            ArticleSorter.sort(articles, listOrder);
+            // Only the moved rows are animated
+            submitArticles(articles);
         }
     }
 
+    /**
+     * Save the position of an article which has been dragged to a new place
+     * The articles still to load come after the loaded ones, in priority order: the priority of the
+     * moved article only depends on its loaded neighbours, unless the whole list is renumbered
+     * The neighbours are read in the last submitted list, a page may have been added to it
+     * @param article The dragged article
+     * @param allLoaded Whether all the articles of the shop are loaded
+     * @return False if nothing was saved since the whole list is needed (a sorted list switching to
+     * manual order, a drop after the last loaded article or no room left between the neighbours)
+     */
+    public boolean savePosition(Article article, boolean allLoaded){
+        int position = indexOf(latestDataset, article.getId());
+        if(position == -1){
+            // Removed in the meantime, nothing to save
+            return true;
+        }
+        // Dragging an article in a sorted list keeps the whole list as it is shown, in manual order
+        if(listOrder != ListOrder.MANUAL){
+            if(!allLoaded){
+                return false;
+            }
+            listOrder = ListOrder.MANUAL;
+            savePositions();
+            return true;
+        }
+        // The next neighbour of the last loaded article is not loaded yet
+        if(!allLoaded && position == latestDataset.size() - 1){
+            return false;
+        }
+        // The other articles keep their priority, only the moved one is written
+        if(!ArticlePriorities.place(latestDataset, position) ||
+                !ArticlePriorities.isOrdered(latestDataset)){
+            // No room left around the new position, or the list was not in priority order (e.g. after a sort)
+            if(!allLoaded){
+                return false;
+            }
+            savePositions();
+            return true;
+        }
+        List<Article> movedArticles = new ArrayList<>();
+        movedArticles.add(latestDataset.get(position));
+        articleManager.updatePriorities(movedArticles);
+        return true;
+    }
+
     /**
      * Returns whether or not there are items selected
      * @return whether or not there are items selected
      */
     public boolean hasSelectedItems(){
-        return selectedItems.size() > 0;
+        return !selectedIds.isEmpty();
+    }
+
+    /**
+     * Returns whether or not the article is selected
+     * @param article The article
+     * @return Whether or not the article is selected
+     */
+    public boolean isSelected(Article article){
+        return selectedIds.contains(article.getId());
     }
 
     /**
@@ -305,8 +685,11 @@ public class ArticleAdapter extends RecyclerView.Adapter<ArticleAdapter.ViewHold
      */
     public List<Integer> getSelectedPositions(){
         List<Integer> positions = new ArrayList<>();
-        for(ViewHolder holder : selectedItems){
-            positions.add(holder.getAdapterPosition());
+        // Walk the list so that the positions are in the displayed order
+        for(int i = 0; i < articleDataset.size() && positions.size() < selectedIds.size(); i++){
+            if(selectedIds.contains(articleDataset.get(i).getId())){
+                positions.add(i);
+            }
         }
         return positions;
     }
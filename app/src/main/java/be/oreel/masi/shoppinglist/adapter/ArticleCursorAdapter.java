@@ -0,0 +1,227 @@
+package be.oreel.masi.shoppinglist.adapter;
+
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+import android.graphics.Paint;
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import java.util.Collections;
+
+import be.oreel.masi.shoppinglist.R;
+import be.oreel.masi.shoppinglist.model.Article;
+
+/**
+ * Adapter binding the articles straight from a database cursor, without creating an Article per row
+ * It only shows the list: a tap toggles the strikethrough of an article
+ */
+public class ArticleCursorAdapter extends RecyclerView.Adapter<ArticleCursorAdapter.ViewHolder> {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    // The columns of the cursor, in the order of ArticleDataSource.getArticlesCursor
+    private static final int COLUMN_ID = 0;
+    private static final int COLUMN_NAME = 2;
+    private static final int COLUMN_AMOUNT = 3;
+    private static final int COLUMN_MEASURE = 4;
+    private static final int COLUMN_STRIKETHROUGH = 5;
+
+    private final ArticleManager articleManager;
+    private Cursor cursor;
+
+    // ==================
+    // === VIEWHOLDER ===
+    // ==================
+
+    /**
+     * Provides a reference to the views of each data item
+     * The text buffers are reused from one bind to the next
+     */
+    public static class ViewHolder extends RecyclerView.ViewHolder {
+
+        public LinearLayout contentParent;
+        public TextView tvName;
+        public TextView tvAmount;
+        private final CharArrayBuffer nameBuffer = new CharArrayBuffer(64);
+        private final CharArrayBuffer measureBuffer = new CharArrayBuffer(8);
+        private char[] amountBuffer = new char[16];
+        public ViewHolder(LinearLayout v) {
+            super(v);
+            contentParent = v;
+            tvName = (TextView) v.findViewById(R.id.article_name);
+            tvAmount = (TextView) v.findViewById(R.id.article_amount);
+            // The amount is not edited from this list
+            v.findViewById(R.id.article_amount_decrease).setVisibility(View.GONE);
+            v.findViewById(R.id.article_amount_increase).setVisibility(View.GONE);
+        }
+    }
+
+    // ===================
+    // === CONSTRUCTOR ===
+    // ===================
+
+    /**
+     * The constructor
+     * @param articleManager The articleManager
+     */
+    public ArticleCursorAdapter(ArticleManager articleManager) {
+        this.articleManager = articleManager;
+        // The ids let the recyclerView keep the rows in place when the cursor is swapped
+        setHasStableIds(true);
+    }
+
+    // =========================
+    // === ADAPTER FUNCTIONS ===
+    // =========================
+
+    /**
+     * Creates the new views (invoked by the layout manager)
+     * @param parent The parent viewGroup
+     * @param viewType The view type
+     * @return The new viewHolder
+     */
+    @Override
+    public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        LinearLayout v = (LinearLayout) LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.article_template, parent, false);
+        final ViewHolder holder = new ViewHolder(v);
+        // Toggle the strikethrough of the article on a press
+        holder.contentParent.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                int position = holder.getAdapterPosition();
+                if(position != RecyclerView.NO_POSITION && cursor.moveToPosition(position)){
+                    // Only the id of the article and its new state are needed to flip it
+                    Article article = new Article();
+                    article.setId(cursor.getLong(COLUMN_ID));
+                    article.setStrikethrough(cursor.getInt(COLUMN_STRIKETHROUGH) == 0);
+                    // Written right away rather than buffered, the rows are read again after it
+                    article.clearDirtyFields(Article.ALL_FIELDS);
+                    articleManager.toggleStrikethrough(Collections.singletonList(article));
+                }
+            }
+        });
+        return holder;
+    }
+
+    /**
+     * Replaces the contents of a view with the row of the cursor (invoked by the layout manager)
+     * @param holder The viewHolder being bind
+     * @param position The position of the viewHolder in the list
+     */
+    @Override
+    public void onBindViewHolder(ViewHolder holder, int position) {
+        cursor.moveToPosition(position);
+        // Copy the name in the buffer of the viewHolder instead of creating a string
+        cursor.copyStringToBuffer(COLUMN_NAME, holder.nameBuffer);
+        holder.tvName.setText(holder.nameBuffer.data, 0, holder.nameBuffer.sizeCopied);
+        // Write the amount followed by the measure in the buffer of the viewHolder
+        int length = formatAmount(holder, cursor.getInt(COLUMN_AMOUNT));
+        holder.tvAmount.setText(holder.amountBuffer, 0, length);
+        // Strike through if it has to be, unstrike in case a viewHolder gets recycled
+        boolean strikethrough = cursor.getInt(COLUMN_STRIKETHROUGH) == 1;
+        setStrikethrough(holder.tvName, strikethrough);
+        setStrikethrough(holder.tvAmount, strikethrough);
+    }
+
+    /**
+     * Returns the number of rows of the cursor (invoked by the layout manager)
+     * @return The number of rows
+     */
+    @Override
+    public int getItemCount() {
+        return cursor != null ? cursor.getCount() : 0;
+    }
+
+    /**
+     * Returns the id of the article of a row (invoked by the layout manager)
+     * @param position The position of the row
+     * @return The id of the article
+     */
+    @Override
+    public long getItemId(int position) {
+        return cursor.moveToPosition(position) ? cursor.getLong(COLUMN_ID) : RecyclerView.NO_ID;
+    }
+
+    // ========================
+    // === CURSOR FUNCTIONS ===
+    // ========================
+
+    /**
+     * Shows the rows of a new cursor, the previous one is closed
+     * @param newCursor The new cursor, null to empty the list
+     */
+    public void swapCursor(Cursor newCursor) {
+        if(newCursor == cursor){
+            return;
+        }
+        Cursor oldCursor = cursor;
+        cursor = newCursor;
+        notifyDataSetChanged();
+        if(oldCursor != null){
+            oldCursor.close();
+        }
+    }
+
+    /**
+     * Returns the position of an article in the cursor
+     * @param id The id of the article
+     * @return The position of the article, RecyclerView.NO_POSITION if it isn't in the cursor
+     */
+    public int getPosition(long id) {
+        for(int i = 0; i < getItemCount(); i++){
+            if(getItemId(i) == id){
+                return i;
+            }
+        }
+        return RecyclerView.NO_POSITION;
+    }
+
+    // ========================
+    // === HELPER FUNCTIONS ===
+    // ========================
+
+    /**
+     * Writes the amount followed by the measure (e.g. "2kg") in the amount buffer of the viewHolder
+     * @param holder The viewHolder, its cursor row is the current one
+     * @param amount The amount of the article
+     * @return The number of characters written
+     */
+    private int formatAmount(ViewHolder holder, int amount) {
+        cursor.copyStringToBuffer(COLUMN_MEASURE, holder.measureBuffer);
+        int measureLength = holder.measureBuffer.sizeCopied;
+        // Count the digits of the amount (always at least 1)
+        int digits = 1;
+        for(int rest = amount / 10; rest > 0; rest /= 10){
+            digits++;
+        }
+        if(holder.amountBuffer.length < digits + measureLength){
+            holder.amountBuffer = new char[digits + measureLength];
+        }
+        // Write the digits from the last one
+        int rest = amount;
+        for(int i = digits - 1; i >= 0; i--){
+            holder.amountBuffer[i] = (char) ('0' + rest % 10);
+            rest /= 10;
+        }
+        System.arraycopy(holder.measureBuffer.data, 0, holder.amountBuffer, digits, measureLength);
+        return digits + measureLength;
+    }
+
+    /**
+     * Strikes or unstrikes through a textView
+     * @param tv The textView
+     * @param strikethrough Whether to strike through or not
+     */
+    private static void setStrikethrough(TextView tv, boolean strikethrough){
+        tv.setPaintFlags(strikethrough ?
+                tv.getPaintFlags() | Paint.STRIKE_THRU_TEXT_FLAG :
+                tv.getPaintFlags() & (~Paint.STRIKE_THRU_TEXT_FLAG));
+    }
+}
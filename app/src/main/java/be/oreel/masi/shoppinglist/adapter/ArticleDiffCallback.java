@@ -0,0 +1,80 @@
+package be.oreel.masi.shoppinglist.adapter;
+
+import android.support.v7.util.DiffUtil;
+
+import java.util.List;
+
+import be.oreel.masi.shoppinglist.model.Article;
+
+/**
+ * Computes the difference between two article lists, so that only the changed rows are updated
+ */
+public class ArticleDiffCallback extends DiffUtil.Callback {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    private final List<Article> oldArticles;
+    private final List<Article> newArticles;
+
+    // ===================
+    // === CONSTRUCTOR ===
+    // ===================
+
+    /**
+     * The constructor
+     * @param oldArticles The list currently shown
+     * @param newArticles The list to show
+     */
+    public ArticleDiffCallback(List<Article> oldArticles, List<Article> newArticles) {
+        this.oldArticles = oldArticles;
+        this.newArticles = newArticles;
+    }
+
+    // ==========================
+    // === DIFFUTIL FUNCTIONS ===
+    // ==========================
+
+    @Override
+    public int getOldListSize() {
+        return oldArticles.size();
+    }
+
+    @Override
+    public int getNewListSize() {
+        return newArticles.size();
+    }
+
+    /**
+     * Two rows show the same article if they have the same id
+     */
+    @Override
+    public boolean areItemsTheSame(int oldPosition, int newPosition) {
+        return oldArticles.get(oldPosition).getId() == newArticles.get(newPosition).getId();
+    }
+
+    /**
+     * Two rows look the same if all the displayed fields are equal
+     */
+    @Override
+    public boolean areContentsTheSame(int oldPosition, int newPosition) {
+        Article oldArticle = oldArticles.get(oldPosition);
+        Article newArticle = newArticles.get(newPosition);
+        // Same object: changes made in place are notified when they happen
+        if(oldArticle == newArticle){
+            return true;
+        }
+        return equals(oldArticle.getName(), newArticle.getName()) &&
+                oldArticle.getAmount() == newArticle.getAmount() &&
+                equals(oldArticle.getMeasure(), newArticle.getMeasure()) &&
+                oldArticle.isStrikethrough() == newArticle.isStrikethrough();
+    }
+
+    /**
+     * Null-safe string comparison
+     */
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
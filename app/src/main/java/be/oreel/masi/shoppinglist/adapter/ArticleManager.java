@@ -1,5 +1,7 @@
 package be.oreel.masi.shoppinglist.adapter;
 
+import java.util.List;
+
 import be.oreel.masi.shoppinglist.model.ToolbarMode;
 import be.oreel.masi.shoppinglist.model.Article;
 
@@ -10,4 +12,6 @@ public interface ArticleManager {
     ToolbarMode getToolbarMode();
     void setToolbarMode(ToolbarMode mode);
     void updateArticle(Article article);
+    void updatePriorities(List<Article> articles);
+    void toggleStrikethrough(List<Article> articles);
 }
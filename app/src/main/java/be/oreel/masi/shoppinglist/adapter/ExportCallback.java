@@ -0,0 +1,8 @@
+package be.oreel.masi.shoppinglist.adapter;
+
+/**
+ * Receives the articles exported by the ArticleAdapter, on the main thread
+ */
+public interface ExportCallback {
+    void onExported(String text);
+}
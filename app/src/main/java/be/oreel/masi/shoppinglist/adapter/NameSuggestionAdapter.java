@@ -0,0 +1,135 @@
+package be.oreel.masi.shoppinglist.adapter;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.Filter;
+import android.widget.Filterable;
+import android.widget.TextView;
+
+import java.util.Collections;
+import java.util.List;
+
+import be.oreel.masi.shoppinglist.model.ArticleNameIndex;
+
+/**
+ * The adapter suggesting the names of the articles already added while a name is typed
+ * The names are looked up in the name index, the article table is not read while typing
+ */
+public class NameSuggestionAdapter extends BaseAdapter implements Filterable {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    // The number of suggested names
+    private static final int MAX_SUGGESTIONS = 8;
+
+    private final ArticleNameIndex nameIndex;
+    private List<String> names = Collections.emptyList();
+    private final Filter filter = new Filter() {
+        /**
+         * Looks up the names starting with the typed text (invoked on a background thread)
+         * @param constraint The typed text
+         * @return The names
+         */
+        @Override
+        protected FilterResults performFiltering(CharSequence constraint) {
+            List<String> found = constraint != null ?
+                    nameIndex.suggest(constraint.toString(), MAX_SUGGESTIONS) :
+                    Collections.<String>emptyList();
+            FilterResults results = new FilterResults();
+            results.values = found;
+            results.count = found.size();
+            return results;
+        }
+
+        /**
+         * Shows the found names (invoked on the main thread)
+         * @param constraint The typed text
+         * @param results The names
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void publishResults(CharSequence constraint, FilterResults results) {
+            names = (List<String>) results.values;
+            if(results.count > 0){
+                notifyDataSetChanged();
+            }
+            else{
+                notifyDataSetInvalidated();
+            }
+        }
+    };
+
+    // ===================
+    // === CONSTRUCTOR ===
+    // ===================
+
+    /**
+     * The constructor
+     * @param nameIndex The names of the articles already added
+     */
+    public NameSuggestionAdapter(ArticleNameIndex nameIndex) {
+        this.nameIndex = nameIndex;
+    }
+
+    // =========================
+    // === ADAPTER FUNCTIONS ===
+    // =========================
+
+    /**
+     * Returns the number of suggested names
+     * @return The number of suggested names
+     */
+    @Override
+    public int getCount() {
+        return names.size();
+    }
+
+    /**
+     * Returns a suggested name
+     * @param position The position of the name
+     * @return The name
+     */
+    @Override
+    public String getItem(int position) {
+        return names.get(position);
+    }
+
+    /**
+     * Returns the id of a suggested name
+     * @param position The position of the name
+     * @return The position
+     */
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    /**
+     * Returns the row of a suggested name
+     * @param position The position of the name
+     * @param convertView The row to reuse, may be null
+     * @param parent The parent viewGroup
+     * @return The row
+     */
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        TextView view = (TextView) (convertView != null ? convertView :
+                LayoutInflater.from(parent.getContext())
+                        .inflate(android.R.layout.simple_dropdown_item_1line, parent, false));
+        view.setText(names.get(position));
+        return view;
+    }
+
+    /**
+     * Returns the filter looking up the names
+     * @return The filter
+     */
+    @Override
+    public Filter getFilter() {
+        return filter;
+    }
+}
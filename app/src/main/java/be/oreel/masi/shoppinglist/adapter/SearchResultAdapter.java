@@ -0,0 +1,131 @@
+package be.oreel.masi.shoppinglist.adapter;
+
+import android.graphics.Paint;
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import java.util.Collections;
+import java.util.List;
+
+import be.oreel.masi.shoppinglist.R;
+import be.oreel.masi.shoppinglist.model.Article;
+import be.oreel.masi.shoppinglist.model.SearchResult;
+
+/**
+ * The adapter for the recyclerView of the SearchActivity
+ */
+public class SearchResultAdapter extends RecyclerView.Adapter<SearchResultAdapter.ViewHolder> {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    private final SearchResultManager searchResultManager;
+    private List<SearchResult> results = Collections.emptyList();
+
+    // ===================
+    // === CONSTRUCTOR ===
+    // ===================
+
+    /**
+     * The constructor
+     * @param searchResultManager The search result manager
+     */
+    public SearchResultAdapter(SearchResultManager searchResultManager) {
+        this.searchResultManager = searchResultManager;
+    }
+
+    // ==================
+    // === VIEWHOLDER ===
+    // ==================
+
+    /**
+     * The search result ViewHolder
+     */
+    public static class ViewHolder extends RecyclerView.ViewHolder {
+
+        public LinearLayout contentParent;
+        public TextView tvName;
+        public TextView tvAmount;
+        public TextView tvShop;
+        public ViewHolder(LinearLayout v) {
+            super(v);
+            contentParent = v;
+            tvName = (TextView) v.findViewById(R.id.search_result_name);
+            tvAmount = (TextView) v.findViewById(R.id.search_result_amount);
+            tvShop = (TextView) v.findViewById(R.id.search_result_shop);
+        }
+    }
+
+    // =========================
+    // === ADAPTER FUNCTIONS ===
+    // =========================
+
+    /**
+     * Creates the new views (invoked by the layout manager)
+     * @param parent The parent viewGroup
+     * @param viewType The view type
+     * @return The new viewHolder
+     */
+    @Override
+    public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        LinearLayout v = (LinearLayout) LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.search_result_template, parent, false);
+        final ViewHolder holder = new ViewHolder(v);
+        // Open the shop of the article on a press
+        holder.contentParent.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                int position = holder.getAdapterPosition();
+                if(position != RecyclerView.NO_POSITION){
+                    searchResultManager.openSearchResult(results.get(position));
+                }
+            }
+        });
+        return holder;
+    }
+
+    /**
+     * Replaces the contents of a view (invoked by the layout manager)
+     * @param holder The viewHolder being bind
+     * @param position The position of the viewHolder in the list
+     */
+    @Override
+    public void onBindViewHolder(ViewHolder holder, int position) {
+        SearchResult result = results.get(position);
+        Article article = result.getArticle();
+        holder.tvName.setText(article.getName());
+        holder.tvAmount.setText(article.getAmountText());
+        holder.tvShop.setText(result.getShop().getName());
+        // Strike through the articles already bought
+        holder.tvName.setPaintFlags(article.isStrikethrough() ?
+                holder.tvName.getPaintFlags() | Paint.STRIKE_THRU_TEXT_FLAG :
+                holder.tvName.getPaintFlags() & (~Paint.STRIKE_THRU_TEXT_FLAG));
+    }
+
+    /**
+     * Returns the number of results (invoked by the layout manager)
+     * @return The number of results
+     */
+    @Override
+    public int getItemCount() {
+        return results.size();
+    }
+
+    // =================
+    // === FUNCTIONS ===
+    // =================
+
+    /**
+     * Shows new results
+     * @param results The found articles with their shop
+     */
+    public void setResults(List<SearchResult> results) {
+        this.results = results;
+        notifyDataSetChanged();
+    }
+}
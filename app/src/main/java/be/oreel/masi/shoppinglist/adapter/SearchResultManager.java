@@ -0,0 +1,10 @@
+package be.oreel.masi.shoppinglist.adapter;
+
+import be.oreel.masi.shoppinglist.model.SearchResult;
+
+/**
+ * Interface for listener communication between SearchActivity and SearchResultAdapter
+ */
+public interface SearchResultManager {
+    void openSearchResult(SearchResult result);
+}
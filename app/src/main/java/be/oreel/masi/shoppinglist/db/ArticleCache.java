@@ -0,0 +1,316 @@
+package be.oreel.masi.shoppinglist.db;
+
+import android.content.ComponentCallbacks2;
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import be.oreel.masi.shoppinglist.model.Article;
+import be.oreel.masi.shoppinglist.model.ArticleSorter;
+import be.oreel.masi.shoppinglist.model.ListOrder;
+
+/**
+ * Keeps the articles of the last opened shops in memory, so that opening a shop again doesn't
+ * read its articles from the database
+ * The least recently opened shops are dropped first, the size of the cache is counted in articles
+ * The ArticleDataSource writes every change to the cached articles as well, they never get stale
+ * Thread safe: written on the database thread, read on the reader threads
+ */
+public class ArticleCache {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    // The cached articles of each shop by id, in the order they were read or added
+    // A map is taken out while articles are added to it or removed from it, then put back,
+    // so that the size counted by the LruCache stays right
+    private final LruCache<Long, Map<Long, Article>> shops;
+
+    // ===================
+    // === CONSTRUCTOR ===
+    // ===================
+
+    /**
+     * The constructor
+     * @param maxArticles The maximum number of articles kept, all shops together
+     */
+    public ArticleCache(int maxArticles) {
+        shops = new LruCache<Long, Map<Long, Article>>(maxArticles) {
+            @Override
+            protected int sizeOf(Long shopId, Map<Long, Article> articles) {
+                // An empty shop still takes an entry
+                return articles.size() + 1;
+            }
+        };
+    }
+
+    // =================
+    // === FUNCTIONS ===
+    // =================
+
+    /**
+     * Returns copies of the cached articles of a shop
+     * @param shopId The id of the shop
+     * @param order The order of the articles
+     * @return The articles in list order, null if the shop is not cached
+     */
+    public synchronized List<Article> get(long shopId, ListOrder order) {
+        Map<Long, Article> articles = shops.get(shopId);
+        if(articles == null){
+            return null;
+        }
+        List<Article> copies = new ArrayList<>(articles.size());
+        for(Article article : articles.values()){
+            Article copy = new Article(article);
+            // Format the displayed amount here, off the main thread
+            copy.getAmountText();
+            copies.add(copy);
+        }
+        ArticleSorter.sort(copies, order);
+        return copies;
+    }
+
+    /**
+     * Returns whether the articles of a shop are cached, without counting a hit or a miss
+     * @param shopId The id of the shop
+     * @return Whether the shop is cached
+     */
+    public synchronized boolean contains(long shopId) {
+        return shops.snapshot().containsKey(shopId);
+    }
+
+    /**
+     * Returns whether a shop can be cached, a shop bigger than the whole cache would be dropped
+     * right away
+     * @param articleCount The number of articles of the shop
+     * @return Whether the shop fits in the cache
+     */
+    public boolean fits(int articleCount) {
+        return articleCount + 1 <= shops.maxSize();
+    }
+
+    /**
+     * Caches all the articles of a shop, as they are stored
+     * @param shopId The id of the shop
+     * @param articles All the articles of the shop
+     */
+    public synchronized void put(long shopId, List<Article> articles) {
+        if(!fits(articles.size())){
+            shops.remove(shopId);
+            return;
+        }
+        Map<Long, Article> cached = new LinkedHashMap<>(articles.size() * 4 / 3 + 1);
+        for(Article article : articles){
+            cached.put(article.getId(), copyOf(article));
+        }
+        shops.put(shopId, cached);
+    }
+
+    /**
+     * Adds stored articles to the cached shops
+     * @param articles The stored articles
+     */
+    public synchronized void add(Collection<Article> articles) {
+        for(Map.Entry<Long, List<Article>> shop : groupByShop(articles).entrySet()){
+            Map<Long, Article> cached = shops.remove(shop.getKey());
+            for(Article article : shop.getValue()){
+                cached.put(article.getId(), copyOf(article));
+            }
+            shops.put(shop.getKey(), cached);
+        }
+    }
+
+    /**
+     * Copies the stored fields of an article to its cached copy, if any
+     * @param article The stored article
+     * @param fields The Article.FIELD_* bits of the stored fields
+     */
+    public synchronized void update(Article article, int fields) {
+        Article cached = find(article, shops.snapshot());
+        if(cached != null){
+            copyFields(article, cached, fields);
+        }
+    }
+
+    /**
+     * Copies the same stored fields of articles to their cached copies, if any
+     * @param articles The stored articles
+     * @param fields The Article.FIELD_* bits of the stored fields
+     */
+    public synchronized void update(Collection<Article> articles, int fields) {
+        // Not counted as a hit or a miss
+        Map<Long, Map<Long, Article>> cachedShops = shops.snapshot();
+        for(Article article : articles){
+            Article cached = find(article, cachedShops);
+            if(cached != null){
+                copyFields(article, cached, fields);
+            }
+        }
+    }
+
+    /**
+     * Removes articles from the cached shops
+     * @param articles The removed articles, only their id (and shop id if set) are used
+     */
+    public synchronized void remove(Collection<Article> articles) {
+        for(Map.Entry<Long, List<Article>> shop : groupByShop(articles).entrySet()){
+            Map<Long, Article> cached = shops.remove(shop.getKey());
+            for(Article article : shop.getValue()){
+                cached.remove(article.getId());
+            }
+            shops.put(shop.getKey(), cached);
+        }
+    }
+
+    /**
+     * Drops the cached articles of a shop
+     * @param shopId The id of the shop
+     */
+    public synchronized void remove(long shopId) {
+        shops.remove(shopId);
+    }
+
+    /**
+     * Frees memory when the system runs low on it (see ComponentCallbacks2.onTrimMemory)
+     * @param level The trim level
+     */
+    public synchronized void trim(int level) {
+        if(level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE ||
+                level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL){
+            // The app is about to be killed or the device is struggling, drop everything
+            shops.evictAll();
+        }
+        else if(level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND ||
+                level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW){
+            // Keep the most recently opened shops
+            shops.trimToSize(shops.maxSize() / 2);
+        }
+    }
+
+    /**
+     * Returns the number of shops opened from the cache
+     * @return The number of hits
+     */
+    public synchronized int getHitCount() {
+        return shops.hitCount();
+    }
+
+    /**
+     * Returns the number of shops which had to be read from the database (or were not cached yet)
+     * @return The number of misses
+     */
+    public synchronized int getMissCount() {
+        return shops.missCount();
+    }
+
+    /**
+     * Returns the number of cached articles (plus one per cached shop)
+     * @return The size of the cache
+     */
+    public synchronized int getSize() {
+        return shops.size();
+    }
+
+    /**
+     * Returns the counters of the cache, for logging
+     * @return The size, hits and misses of the cache
+     */
+    @Override
+    public synchronized String toString() {
+        return shops.toString();
+    }
+
+    /**
+     * Groups articles by their cached shop, the articles of the shops which aren't cached are left out
+     * @param articles The articles, their shop id is used if set (0 otherwise, e.g. in cursor mode)
+     * @return The articles of each cached shop, by shop id
+     */
+    private Map<Long, List<Article>> groupByShop(Collection<Article> articles) {
+        // Not counted as a hit or a miss
+        Map<Long, Map<Long, Article>> cachedShops = shops.snapshot();
+        Map<Long, List<Article>> grouped = new HashMap<>();
+        for(Article article : articles){
+            long shopId = article.getShopId();
+            if(shopId == 0){
+                Article cached = find(article, cachedShops);
+                if(cached == null){
+                    continue;
+                }
+                shopId = cached.getShopId();
+            }
+            if(!cachedShops.containsKey(shopId)){
+                continue;
+            }
+            List<Article> shopArticles = grouped.get(shopId);
+            if(shopArticles == null){
+                shopArticles = new ArrayList<>();
+                grouped.put(shopId, shopArticles);
+            }
+            shopArticles.add(article);
+        }
+        return grouped;
+    }
+
+    /**
+     * Returns the cached copy of an article
+     * @param article The article, its shop id is used if set (0 otherwise, e.g. in cursor mode)
+     * @param cachedShops A snapshot of the cached shops
+     * @return The cached copy, null if it isn't cached
+     */
+    private static Article find(Article article, Map<Long, Map<Long, Article>> cachedShops) {
+        if(article.getShopId() != 0){
+            Map<Long, Article> cached = cachedShops.get(article.getShopId());
+            return cached != null ? cached.get(article.getId()) : null;
+        }
+        // Only a few shops are cached
+        for(Map<Long, Article> cached : cachedShops.values()){
+            Article found = cached.get(article.getId());
+            if(found != null){
+                return found;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Copies an article for the cache
+     * @param article The stored article
+     * @return The copy, without changed fields
+     */
+    private static Article copyOf(Article article) {
+        Article copy = new Article(article);
+        copy.clearDirtyFields(Article.ALL_FIELDS);
+        return copy;
+    }
+
+    /**
+     * Copies stored fields of an article to its cached copy
+     * @param article The stored article
+     * @param cached The cached copy
+     * @param fields The Article.FIELD_* bits of the stored fields
+     */
+    private static void copyFields(Article article, Article cached, int fields) {
+        if((fields & Article.FIELD_NAME) != 0){
+            cached.setName(article.getName());
+        }
+        if((fields & Article.FIELD_AMOUNT) != 0){
+            cached.setAmount(article.getAmount());
+        }
+        if((fields & Article.FIELD_MEASURE) != 0){
+            cached.setMeasure(article.getMeasure());
+        }
+        if((fields & Article.FIELD_STRIKETHROUGH) != 0){
+            cached.setStrikethrough(article.isStrikethrough());
+        }
+        if((fields & Article.FIELD_PRIORITY) != 0){
+            cached.setPriority(article.getPriority());
+        }
+        cached.clearDirtyFields(Article.ALL_FIELDS);
+    }
+}
@@ -5,12 +5,21 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.support.annotation.VisibleForTesting;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import be.oreel.masi.shoppinglist.model.Article;
+import be.oreel.masi.shoppinglist.model.ArticleNameIndex;
+import be.oreel.masi.shoppinglist.model.ArticlePriorities;
+import be.oreel.masi.shoppinglist.model.ListOrder;
+import be.oreel.masi.shoppinglist.model.SearchResult;
+import be.oreel.masi.shoppinglist.model.Shop;
 
 /**
  * Article DAO
@@ -21,8 +30,112 @@ public class ArticleDataSource {
     // === VARIABLES ===
     // =================
 
-    private SQLiteDatabase database;
+    // The number of articles kept in memory, all shops together (see ArticleCache)
+    public static final int MAX_CACHED_ARTICLES = 5000;
+
+    // Maximum number of ids bound in a single 'IN (...)' clause (SQLite allows 999 variables)
+    private static final int MAX_IDS_PER_STATEMENT = 500;
+
+    // The statements compiled once and reused with bound arguments
+    private static final String SQL_INSERT =
+            "INSERT INTO " + DBHelper.TABLE_ARTICLE + " (" +
+            DBHelper.COLUMN_SHOP_ID + ", " +
+            DBHelper.COLUMN_ARTICLE_NAME + ", " +
+            DBHelper.COLUMN_AMOUNT + ", " +
+            DBHelper.COLUMN_MEASURE + ", " +
+            DBHelper.COLUMN_STRIKETHROUGH + ", " +
+            DBHelper.COLUMN_PRIORITY + ") VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String SQL_UPDATE_PRIORITY =
+            "UPDATE " + DBHelper.TABLE_ARTICLE +
+            " SET " + DBHelper.COLUMN_PRIORITY + " = ?" +
+            " WHERE " + DBHelper.COLUMN_ID + " = ?";
+    private static final String SQL_DELETE =
+            "DELETE FROM " + DBHelper.TABLE_ARTICLE +
+            " WHERE " + DBHelper.COLUMN_ID + " = ?";
+    private static final String SQL_DELETE_SHOP =
+            "DELETE FROM " + DBHelper.TABLE_ARTICLE +
+            " WHERE " + DBHelper.COLUMN_SHOP_ID + " = ?";
+    private static final String SQL_PURGE_SHOP =
+            "DELETE FROM " + DBHelper.TABLE_ARTICLE +
+            " WHERE " + DBHelper.COLUMN_SHOP_ID + " = ? AND " + DBHelper.COLUMN_DELETED + " = 1";
+    // The number of articles of a shop, counted on the (shop_id, priority) index
+    private static final String SQL_COUNT_SHOP =
+            "SELECT COUNT(*) FROM " + DBHelper.TABLE_ARTICLE +
+            " WHERE " + DBHelper.COLUMN_SHOP_ID + " = ? AND " + DBHelper.COLUMN_DELETED + " = 0";
+    // The highest priority of a shop (0 if it has no articles), read from the (shop_id, priority)
+    // index, the removed articles count as well since they can be restored
+    private static final String SQL_MAX_PRIORITY =
+            "SELECT IFNULL(MAX(" + DBHelper.COLUMN_PRIORITY + "), 0) FROM " + DBHelper.TABLE_ARTICLE +
+            " WHERE " + DBHelper.COLUMN_SHOP_ID + " = ?";
+
+    // The articles (of every shop) of which the name has words starting like the searched ones
+    // The full-text index finds them without scanning the article table
+    private static final String SQL_SEARCH =
+            "SELECT a." + DBHelper.COLUMN_ID + ", a." + DBHelper.COLUMN_SHOP_ID +
+            ", a." + DBHelper.COLUMN_ARTICLE_NAME + ", a." + DBHelper.COLUMN_AMOUNT +
+            ", a." + DBHelper.COLUMN_MEASURE + ", a." + DBHelper.COLUMN_STRIKETHROUGH +
+            ", a." + DBHelper.COLUMN_PRIORITY + ", s." + DBHelper.COLUMN_SHOP_NAME +
+            ", s." + DBHelper.COLUMN_LIST_ORDER +
+            " FROM " + DBHelper.TABLE_ARTICLE_FTS +
+            " JOIN " + DBHelper.TABLE_ARTICLE + " a ON a." + DBHelper.COLUMN_ID + " = " +
+            DBHelper.TABLE_ARTICLE_FTS + ".docid" +
+            " JOIN " + DBHelper.TABLE_SHOP + " s ON s." + DBHelper.COLUMN_ID + " = a." +
+            DBHelper.COLUMN_SHOP_ID +
+            " WHERE " + DBHelper.TABLE_ARTICLE_FTS + " MATCH ? AND a." + DBHelper.COLUMN_DELETED + " = 0" +
+            " ORDER BY a." + DBHelper.COLUMN_ARTICLE_NAME + DBHelper.COLLATE_LOCALIZED +
+            ", s." + DBHelper.COLUMN_SHOP_NAME + " LIMIT ";
+
+    // The names of the articles with their number of articles and their last article,
+    // the most recently added first
+    private static final String SQL_NAME_USES =
+            "SELECT " + DBHelper.COLUMN_ARTICLE_NAME + ", COUNT(*), MAX(" + DBHelper.COLUMN_ID + ")" +
+            " FROM " + DBHelper.TABLE_ARTICLE +
+            " GROUP BY " + DBHelper.COLUMN_ARTICLE_NAME +
+            " ORDER BY MAX(" + DBHelper.COLUMN_ID + ") DESC LIMIT ";
+
+    // The partial update statement of each set of changed fields, indexed by the Article.FIELD_* bits
+    private static final String[] SQL_UPDATE_FIELDS = new String[Article.ALL_FIELDS + 1];
+
+    // The selection of the articles of a shop, served by the (shop_id, priority) index
+    @VisibleForTesting
+    static final String SELECTION_SHOP =
+            DBHelper.COLUMN_SHOP_ID + " = ? AND " + DBHelper.COLUMN_DELETED + " = 0";
+
+    // The orders of the articles in a shop, each one served by an index, the id settles equal keys
+    private static final String ORDER_PRIORITY =
+            DBHelper.COLUMN_PRIORITY + ", " + DBHelper.COLUMN_ID;
+    private static final String ORDER_NAME_ASC =
+            DBHelper.COLUMN_ARTICLE_NAME + DBHelper.COLLATE_LOCALIZED + ", " + DBHelper.COLUMN_ID;
+    private static final String ORDER_NAME_DESC =
+            DBHelper.COLUMN_ARTICLE_NAME + DBHelper.COLLATE_LOCALIZED + " DESC, " +
+            DBHelper.COLUMN_ID + " DESC";
+    private static final String ORDER_CHECKED_LAST =
+            DBHelper.COLUMN_STRIKETHROUGH + ", " + ORDER_PRIORITY;
+
+    // The selections of the articles of a shop coming after the key of an article, for each order
+    // The first key is bounded on its own (key >= ?), so that the index is walked as a range
+    // from the article on, the rest of the condition only skips the rows with the same key
+    private static final String AFTER_PRIORITY =
+            DBHelper.COLUMN_PRIORITY + " >= ? AND (" +
+            DBHelper.COLUMN_PRIORITY + " > ? OR " + DBHelper.COLUMN_ID + " > ?)";
+    private static final String AFTER_NAME_ASC =
+            DBHelper.COLUMN_ARTICLE_NAME + DBHelper.COLLATE_LOCALIZED + " >= ? AND (" +
+            DBHelper.COLUMN_ARTICLE_NAME + DBHelper.COLLATE_LOCALIZED + " > ? OR " +
+            DBHelper.COLUMN_ID + " > ?)";
+    private static final String AFTER_NAME_DESC =
+            DBHelper.COLUMN_ARTICLE_NAME + DBHelper.COLLATE_LOCALIZED + " <= ? AND (" +
+            DBHelper.COLUMN_ARTICLE_NAME + DBHelper.COLLATE_LOCALIZED + " < ? OR " +
+            DBHelper.COLUMN_ID + " < ?)";
+    private static final String AFTER_CHECKED_LAST =
+            DBHelper.COLUMN_STRIKETHROUGH + " >= ? AND (" +
+            DBHelper.COLUMN_STRIKETHROUGH + " > ? OR (" + AFTER_PRIORITY + "))";
+
+    // Written by the database thread, read by the reader threads
+    private volatile SQLiteDatabase database;
     private DBHelper dbHelper;
+    private final Map<String, SQLiteStatement> statements = new HashMap<>();
+    // The articles of the last opened shops, every write below is applied to it as well
+    private final ArticleCache cache = new ArticleCache(MAX_CACHED_ARTICLES);
     private String[] allColumns = {
             DBHelper.COLUMN_ID,
             DBHelper.COLUMN_SHOP_ID,
@@ -41,7 +154,7 @@ public class ArticleDataSource {
      * @param context The context
      */
     public ArticleDataSource(Context context) {
-        dbHelper = new DBHelper(context);
+        dbHelper = DBHelper.getInstance(context);
     }
 
     // ==========================
@@ -57,10 +170,28 @@ public class ArticleDataSource {
     }
 
     /**
-     * Closes the database
+     * Releases the compiled statements
+     * The shared database itself stays open for the app lifetime
      */
     public void close() {
-        dbHelper.close();
+        for(SQLiteStatement statement : statements.values()){
+            statement.close();
+        }
+        statements.clear();
+    }
+
+    /**
+     * Returns the compiled statement of the sql, compiling it the first time
+     * @param sql The sql of the statement
+     * @return The compiled statement, kept until the database is closed
+     */
+    private SQLiteStatement getStatement(String sql) {
+        SQLiteStatement statement = statements.get(sql);
+        if(statement == null){
+            statement = database.compileStatement(sql);
+            statements.put(sql, statement);
+        }
+        return statement;
     }
 
     /**
@@ -75,42 +206,292 @@ public class ArticleDataSource {
     public Article createArticle(long shopId, String name, int amount, String measure,
                                  boolean strikethrough, int priority) {
         // Add all the values of the article
-        ContentValues values = new ContentValues();
-        values.put(DBHelper.COLUMN_SHOP_ID, shopId);
-        values.put(DBHelper.COLUMN_ARTICLE_NAME, name);
-        values.put(DBHelper.COLUMN_AMOUNT, amount > 0 ? amount : 1);
-        values.put(DBHelper.COLUMN_MEASURE, measure);
-        values.put(DBHelper.COLUMN_STRIKETHROUGH, strikethrough ? 1 : 0);
-        values.put(DBHelper.COLUMN_PRIORITY, priority);
+        Article newArticle = new Article();
+        newArticle.setShopId(shopId);
+        newArticle.setName(name);
+        newArticle.setAmount(amount);
+        newArticle.setMeasure(measure);
+        newArticle.setStrikethrough(strikethrough);
+        newArticle.setPriority(priority);
         // Insert the article in the database
-        long insertId = database.insert(DBHelper.TABLE_ARTICLE, null,
-                values);
-        // Take the data of the new article with its newly created id
-        Cursor cursor = database.query(DBHelper.TABLE_ARTICLE,
-                allColumns, DBHelper.COLUMN_ID + " = " + insertId, null,
-                null, null, null);
-        cursor.moveToFirst();
-        Article newArticle = cursorToArticle(cursor);
-        cursor.close();
-        // Return the new article
+        insertArticle(getStatement(SQL_INSERT), newArticle);
+        cache.add(Collections.singletonList(newArticle));
+        // Return the new article, no need to read it back
         return newArticle;
     }
 
     /**
-     * Updates the article
-     * @param article The article to update
+     * Returns the priority of an article added after the last article of a shop
+     * @param shopId The id of the shop
+     * @return The priority after the highest one of the shop
+     */
+    public int getNextPriority(long shopId) {
+        SQLiteStatement statement = getStatement(SQL_MAX_PRIORITY);
+        statement.bindLong(1, shopId);
+        return (int) statement.simpleQueryForLong() + ArticlePriorities.GAP;
+    }
+
+    /**
+     * Inserts an article with the compiled insert statement
+     * @param statement The insert statement
+     * @param article The article to insert, its id is set with the new row id
+     */
+    private void insertArticle(SQLiteStatement statement, Article article) {
+        statement.bindLong(1, article.getShopId());
+        statement.bindString(2, article.getName());
+        statement.bindLong(3, article.getAmount() > 0 ? article.getAmount() : 1);
+        bindStringOrNull(statement, 4, article.getMeasure());
+        statement.bindLong(5, article.isStrikethrough() ? 1 : 0);
+        statement.bindLong(6, article.getPriority());
+        article.setId(statement.executeInsert());
+        // All the fields are stored
+        article.clearDirtyFields(Article.ALL_FIELDS);
+    }
+
+    /**
+     * Updates the changed fields of the article
+     * @param article The article to update, only its dirty fields are written
      */
     public void updateArticle(Article article){
-        // Add the values to be update
-        ContentValues values = new ContentValues();
-        values.put(DBHelper.COLUMN_ARTICLE_NAME, article.getName());
-        values.put(DBHelper.COLUMN_AMOUNT, article.getAmount() > 0 ? article.getAmount() : 1);
-        values.put(DBHelper.COLUMN_MEASURE, article.getMeasure());
-        values.put(DBHelper.COLUMN_STRIKETHROUGH, article.isStrikethrough() ? 1 : 0);
-        values.put(DBHelper.COLUMN_PRIORITY, article.getPriority());
+        int fields = article.getDirtyFields();
+        if(fields == 0){
+            return;
+        }
+        // Bind the values to be updated, in the order of the columns of the statement
+        SQLiteStatement statement = getStatement(getUpdateSql(fields));
+        int index = 1;
+        if((fields & Article.FIELD_NAME) != 0){
+            statement.bindString(index++, article.getName());
+        }
+        if((fields & Article.FIELD_AMOUNT) != 0){
+            statement.bindLong(index++, article.getAmount() > 0 ? article.getAmount() : 1);
+        }
+        if((fields & Article.FIELD_MEASURE) != 0){
+            bindStringOrNull(statement, index++, article.getMeasure());
+        }
+        if((fields & Article.FIELD_STRIKETHROUGH) != 0){
+            statement.bindLong(index++, article.isStrikethrough() ? 1 : 0);
+        }
+        if((fields & Article.FIELD_PRIORITY) != 0){
+            statement.bindLong(index++, article.getPriority());
+        }
+        statement.bindLong(index, article.getId());
         // Update the article
-        database.update(DBHelper.TABLE_ARTICLE, values,
-                DBHelper.COLUMN_ID + " = " + article.getId(), null);
+        statement.executeUpdateDelete();
+        cache.update(article, fields);
+        article.clearDirtyFields(fields);
+    }
+
+    /**
+     * Updates the changed fields of multiple articles in a single transaction
+     * @param articles The articles to update, only their dirty fields are written
+     */
+    public void updateArticles(List<Article> articles){
+        if(articles.isEmpty()){
+            return;
+        }
+        database.beginTransaction();
+        try {
+            // The statements are compiled once per set of fields, whatever the number of articles
+            for(Article article : articles){
+                updateArticle(article);
+            }
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+    }
+
+    /**
+     * Returns the update statement writing only the given fields, built once per set of fields
+     * @param fields The Article.FIELD_* bits of the fields to write
+     * @return The sql of the update statement
+     */
+    private static String getUpdateSql(int fields) {
+        String sql = SQL_UPDATE_FIELDS[fields];
+        if(sql == null){
+            StringBuilder builder = new StringBuilder("UPDATE " + DBHelper.TABLE_ARTICLE + " SET ");
+            appendColumn(builder, fields, Article.FIELD_NAME, DBHelper.COLUMN_ARTICLE_NAME);
+            appendColumn(builder, fields, Article.FIELD_AMOUNT, DBHelper.COLUMN_AMOUNT);
+            appendColumn(builder, fields, Article.FIELD_MEASURE, DBHelper.COLUMN_MEASURE);
+            appendColumn(builder, fields, Article.FIELD_STRIKETHROUGH, DBHelper.COLUMN_STRIKETHROUGH);
+            appendColumn(builder, fields, Article.FIELD_PRIORITY, DBHelper.COLUMN_PRIORITY);
+            // Remove the last comma
+            builder.setLength(builder.length() - 2);
+            builder.append(" WHERE ").append(DBHelper.COLUMN_ID).append(" = ?");
+            sql = builder.toString();
+            SQL_UPDATE_FIELDS[fields] = sql;
+        }
+        return sql;
+    }
+
+    /**
+     * Appends the assignment of a column to an update statement if its field is written
+     * @param builder The update statement being built
+     * @param fields The Article.FIELD_* bits of the fields to write
+     * @param field The field of the column
+     * @param column The column name
+     */
+    private static void appendColumn(StringBuilder builder, int fields, int field, String column) {
+        if((fields & field) != 0){
+            builder.append(column).append(" = ?, ");
+        }
+    }
+
+    /**
+     * Updates the priority of multiple articles in a single transaction
+     * @param articles The articles of which the priority has changed
+     */
+    public void updatePriorities(List<Article> articles){
+        if(articles.isEmpty()){
+            return;
+        }
+        SQLiteStatement statement = getStatement(SQL_UPDATE_PRIORITY);
+        database.beginTransaction();
+        try {
+            // Only the priority column is written, one compiled statement for every article
+            for(Article article : articles){
+                statement.bindLong(1, article.getPriority());
+                statement.bindLong(2, article.getId());
+                statement.executeUpdateDelete();
+                cache.update(article, Article.FIELD_PRIORITY);
+                article.clearDirtyFields(Article.FIELD_PRIORITY);
+            }
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+    }
+
+    /**
+     * Writes the flipped strikethrough state of multiple articles in a single transaction
+     * @param articles The flipped articles, with their new state
+     */
+    public void toggleStrikethrough(List<Article> articles){
+        if(articles.isEmpty()){
+            return;
+        }
+        // The state is written as it is, not flipped again, so that writing it twice is harmless
+        List<Article> checked = new ArrayList<>();
+        List<Article> unchecked = new ArrayList<>();
+        for(Article article : articles){
+            if(article.isStrikethrough()){
+                checked.add(article);
+            }
+            else{
+                unchecked.add(article);
+            }
+        }
+        database.beginTransaction();
+        try {
+            setStrikethrough(checked, true);
+            setStrikethrough(unchecked, false);
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+        cache.update(articles, Article.FIELD_STRIKETHROUGH);
+    }
+
+    /**
+     * Writes the same strikethrough state to multiple articles
+     * @param articles The articles
+     * @param strikethrough Whether or not the articles are struck through
+     */
+    private void setStrikethrough(List<Article> articles, boolean strikethrough){
+        ContentValues values = new ContentValues();
+        values.put(DBHelper.COLUMN_STRIKETHROUGH, strikethrough ? 1 : 0);
+        // One statement for all the articles (one per chunk for very large selections)
+        for(int start = 0; start < articles.size(); start += MAX_IDS_PER_STATEMENT){
+            String[] ids = getIds(articles, start);
+            database.update(DBHelper.TABLE_ARTICLE, values,
+                    DBHelper.COLUMN_ID + " IN (" + placeholders(ids.length) + ")", ids);
+        }
+    }
+
+    /**
+     * Flags articles as deleted or brings them back, without removing their rows
+     * @param articles The articles to flag
+     * @param deleted Whether the articles are deleted or restored
+     */
+    public void setDeleted(List<Article> articles, boolean deleted){
+        if(articles.isEmpty()){
+            return;
+        }
+        ContentValues values = new ContentValues();
+        values.put(DBHelper.COLUMN_DELETED, deleted ? 1 : 0);
+        database.beginTransaction();
+        try {
+            // One statement for all the articles (one per chunk for very large selections)
+            for(int start = 0; start < articles.size(); start += MAX_IDS_PER_STATEMENT){
+                String[] ids = getIds(articles, start);
+                database.update(DBHelper.TABLE_ARTICLE, values,
+                        DBHelper.COLUMN_ID + " IN (" + placeholders(ids.length) + ")", ids);
+            }
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+        // The deleted articles are not cached, the restored ones are again
+        if(deleted){
+            cache.remove(articles);
+        }
+        else{
+            cache.add(articles);
+        }
+    }
+
+    /**
+     * Removes the rows of articles flagged as deleted, once the removal can no longer be undone
+     * @param articles The deleted articles
+     */
+    public void purgeDeleted(List<Article> articles){
+        // The flag is checked again, an article restored in the meantime is kept
+        // The cache is left as it is: the deleted articles already left it (see setDeleted)
+        // and the restored ones are back in it
+        deleteArticles(articles, DBHelper.COLUMN_DELETED + " = 1 AND ");
+    }
+
+    /**
+     * Deletes multiple articles in a single transaction
+     * @param articles The articles to delete
+     */
+    public void deleteArticles(List<Article> articles){
+        deleteArticles(articles, "");
+        cache.remove(articles);
+    }
+
+    /**
+     * Deletes multiple articles with one 'DELETE ... WHERE _id IN (...)' per chunk, in a single transaction
+     * @param articles The articles to delete
+     * @param condition An extra condition on the deleted rows, ending with " AND " (or empty)
+     */
+    private void deleteArticles(List<Article> articles, String condition){
+        if(articles.isEmpty()){
+            return;
+        }
+        database.beginTransaction();
+        try {
+            for(int start = 0; start < articles.size(); start += MAX_IDS_PER_STATEMENT){
+                String[] ids = getIds(articles, start);
+                database.delete(DBHelper.TABLE_ARTICLE,
+                        condition + DBHelper.COLUMN_ID + " IN (" + placeholders(ids.length) + ")", ids);
+            }
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+    }
+
+    /**
+     * Removes the rows of all the articles of a shop flagged as deleted
+     * (e.g. left over when the app was closed before the removal snackbar disappeared)
+     * @param shopId The id of the shop
+     */
+    public void purgeDeleted(long shopId){
+        SQLiteStatement statement = getStatement(SQL_PURGE_SHOP);
+        statement.bindLong(1, shopId);
+        statement.executeUpdateDelete();
     }
 
     /**
@@ -118,11 +499,11 @@ public class ArticleDataSource {
      * @param article The article to delete
      */
     public void deleteArticle(Article article) {
-        long id = article.getId();
         // Remove the article from the database
-        database.delete(DBHelper.TABLE_ARTICLE,
-                DBHelper.COLUMN_ID
-                + " = " + id, null);
+        SQLiteStatement statement = getStatement(SQL_DELETE);
+        statement.bindLong(1, article.getId());
+        statement.executeUpdateDelete();
+        cache.remove(Collections.singletonList(article));
     }
 
     /**
@@ -131,8 +512,45 @@ public class ArticleDataSource {
      */
     public void deleteAllArticles(long shopId){
         // Delete all articles of a shop from the database
-        database.delete(DBHelper.TABLE_ARTICLE,
-                DBHelper.COLUMN_SHOP_ID + " = '" + shopId + "'", null);
+        SQLiteStatement statement = getStatement(SQL_DELETE_SHOP);
+        statement.bindLong(1, shopId);
+        statement.executeUpdateDelete();
+        cache.remove(shopId);
+    }
+
+    /**
+     * Returns the cached articles of a shop
+     * @param shopId The id of the shop
+     * @param order The order of the articles
+     * @return Copies of the articles in list order, null if the shop is not cached
+     */
+    public List<Article> getCachedArticles(long shopId, ListOrder order) {
+        return cache.get(shopId, order);
+    }
+
+    /**
+     * Reads all the articles of a shop into the cache, unless they are already cached or the shop
+     * is too big for the cache (it isn't read at all then)
+     * Only called on the database thread, so that no write is missed between the read and the caching
+     * @param shopId The id of the shop
+     */
+    public void cacheArticles(long shopId) {
+        if(cache.contains(shopId)){
+            return;
+        }
+        SQLiteStatement statement = getStatement(SQL_COUNT_SHOP);
+        statement.bindLong(1, shopId);
+        if(cache.fits((int) statement.simpleQueryForLong())){
+            cache.put(shopId, getAllArticles(shopId));
+        }
+    }
+
+    /**
+     * Returns the cache of the articles, e.g. to read its hit and miss counters
+     * @return The cache
+     */
+    public ArticleCache getCache() {
+        return cache;
     }
 
     /**
@@ -142,10 +560,10 @@ public class ArticleDataSource {
      */
     public List<Article> getAllArticles(long shopId) {
         List<Article> articles = new ArrayList<>();
-        // Get all articles of a shop from the database
+        // Get all articles of a shop from the database, in list order (read along the index, no sort)
         Cursor cursor = database.query(DBHelper.TABLE_ARTICLE,
-                allColumns, DBHelper.COLUMN_SHOP_ID + " = '" + shopId + "'",
-                null, null, null, null);
+                allColumns, SELECTION_SHOP, new String[]{String.valueOf(shopId)},
+                null, null, ORDER_PRIORITY);
         // Convert all data to an article list
         cursor.moveToFirst();
         while (!cursor.isAfterLast()) {
@@ -156,15 +574,229 @@ public class ArticleDataSource {
         // make sure to close the cursor
         cursor.close();
 
-        // Reset priority of each article to avoid extreme evergrowing priority sizes
-        Collections.sort(articles);
-        for(int i=0; i<articles.size(); i++){
-            articles.get(i).setPriority(i);
-        }
+        return articles;
+    }
 
+    /**
+     * Returns a page of the articles of a shop, in list order
+     * The page starts right after the key of the given article, so that it stays correct when rows
+     * are added or removed before it (unlike an offset)
+     * @param shopId The id of the shop
+     * @param order The order of the articles, the database sorts them
+     * @param after The last article of the previous page, null for the first page
+     * @param limit The maximum number of articles, 0 to get all the remaining articles
+     * @return The articles of the page
+     */
+    public List<Article> getArticles(long shopId, ListOrder order, Article after, int limit) {
+        List<Article> articles = new ArrayList<>(limit > 0 ? limit : 16);
+        String selection = SELECTION_SHOP;
+        String[] selectionArgs = new String[]{String.valueOf(shopId)};
+        if(after != null){
+            selection += " AND " + getAfterSelection(order);
+            selectionArgs = getAfterArgs(shopId, order, after);
+        }
+        // Get the page from the database, walking the index of the order
+        Cursor cursor = database.query(DBHelper.TABLE_ARTICLE, allColumns, selection, selectionArgs,
+                null, null, getOrderBy(order), limit > 0 ? String.valueOf(limit) : null);
+        // Convert all data to an article list
+        while (cursor.moveToNext()) {
+            articles.add(cursorToArticle(cursor));
+        }
+        // make sure to close the cursor
+        cursor.close();
         return articles;
     }
 
+    /**
+     * Returns a cursor on all the articles of a shop, in list order, for binding the rows without
+     * creating the articles
+     * The columns are in the same order as the ones read by cursorToArticle
+     * @param shopId The id of the shop
+     * @param order The order of the articles, the database sorts them
+     * @return The cursor, to be closed by the caller
+     */
+    public Cursor getArticlesCursor(long shopId, ListOrder order) {
+        Cursor cursor = database.query(DBHelper.TABLE_ARTICLE, allColumns, SELECTION_SHOP,
+                new String[]{String.valueOf(shopId)}, null, null, getOrderBy(order));
+        // Run the query and fill the first window here rather than on the main thread
+        cursor.getCount();
+        return cursor;
+    }
+
+    /**
+     * Searches the articles of all the shops by the words of their name
+     * @param text The searched text, each of its words has to start a word of the name
+     * @param limit The maximum number of articles
+     * @return The found articles with their shop, by name
+     */
+    public List<SearchResult> searchArticles(String text, int limit) {
+        List<SearchResult> results = new ArrayList<>();
+        String match = toMatchQuery(text);
+        if(match.isEmpty()){
+            return results;
+        }
+        Cursor cursor = database.rawQuery(SQL_SEARCH + limit, new String[]{match});
+        while (cursor.moveToNext()) {
+            Shop shop = new Shop();
+            shop.setId(cursor.getLong(1));
+            shop.setName(cursor.getString(7));
+            shop.setListOrder(ShopDataSource.toListOrder(cursor.getString(8)));
+            results.add(new SearchResult(cursorToArticle(cursor), shop));
+        }
+        // make sure to close the cursor
+        cursor.close();
+        return results;
+    }
+
+    /**
+     * Fills an index with the names of the articles of all the shops
+     * @param index The index to fill
+     * @param limit The maximum number of names read, the most recently added ones
+     */
+    public void loadNames(ArticleNameIndex index, int limit) {
+        Cursor cursor = database.rawQuery(SQL_NAME_USES + limit, null);
+        while (cursor.moveToNext()) {
+            index.add(cursor.getString(0), cursor.getInt(1), cursor.getLong(2));
+        }
+        // make sure to close the cursor
+        cursor.close();
+    }
+
+    /**
+     * Turns a searched text into a full-text query matching the names with words starting like
+     * each of its words (e.g. "whole mi" gives "whole* mi*")
+     * Only the letters and digits are kept, the query syntax of the user can't break the query
+     * @param text The searched text
+     * @return The full-text query, empty if there are no words
+     */
+    @VisibleForTesting
+    static String toMatchQuery(String text) {
+        StringBuilder query = new StringBuilder(text.length() + 8);
+        boolean inWord = false;
+        for(int i = 0; i < text.length(); i++){
+            char c = text.charAt(i);
+            if(Character.isLetterOrDigit(c)){
+                // The index folds the case of the ascii letters only, lower case also keeps the
+                // words from being read as operators (e.g. OR)
+                query.append(c < 128 ? Character.toLowerCase(c) : c);
+                inWord = true;
+            }
+            else if(inWord){
+                query.append("* ");
+                inWord = false;
+            }
+        }
+        if(inWord){
+            query.append('*');
+        }
+        return query.toString().trim();
+    }
+
+    /**
+     * Returns the 'ORDER BY' clause of a list order
+     * @param order The list order
+     * @return The 'ORDER BY' clause, without the keywords
+     */
+    @VisibleForTesting
+    static String getOrderBy(ListOrder order) {
+        switch (order){
+            case NAME_ASC:
+                return ORDER_NAME_ASC;
+            case NAME_DESC:
+                return ORDER_NAME_DESC;
+            case CHECKED_LAST:
+                return ORDER_CHECKED_LAST;
+            default:
+                return ORDER_PRIORITY;
+        }
+    }
+
+    /**
+     * Returns the selection of the articles coming after a key in a list order
+     * @param order The list order
+     * @return The selection, its arguments are given by getAfterArgs
+     */
+    @VisibleForTesting
+    static String getAfterSelection(ListOrder order) {
+        switch (order){
+            case NAME_ASC:
+                return AFTER_NAME_ASC;
+            case NAME_DESC:
+                return AFTER_NAME_DESC;
+            case CHECKED_LAST:
+                return AFTER_CHECKED_LAST;
+            default:
+                return AFTER_PRIORITY;
+        }
+    }
+
+    /**
+     * Returns the arguments of the selection of the articles of a shop coming after an article
+     * @param shopId The id of the shop
+     * @param order The list order
+     * @param after The article after which the selected articles come
+     * @return The arguments of the shop selection followed by the ones of the key
+     */
+    @VisibleForTesting
+    static String[] getAfterArgs(long shopId, ListOrder order, Article after) {
+        String shop = String.valueOf(shopId);
+        String id = String.valueOf(after.getId());
+        String priority = String.valueOf(after.getPriority());
+        switch (order){
+            case NAME_ASC:
+            case NAME_DESC:
+                return new String[]{shop, after.getName(), after.getName(), id};
+            case CHECKED_LAST:
+                String strikethrough = after.isStrikethrough() ? "1" : "0";
+                return new String[]{shop, strikethrough, strikethrough, priority, priority, id};
+            default:
+                return new String[]{shop, priority, priority, id};
+        }
+    }
+
+    /**
+     * Binds a string which can be null
+     * @param statement The statement
+     * @param index The index of the argument (starting at 1)
+     * @param value The value to bind
+     */
+    private static void bindStringOrNull(SQLiteStatement statement, int index, String value) {
+        if(value != null){
+            statement.bindString(index, value);
+        }
+        else{
+            statement.bindNull(index);
+        }
+    }
+
+    /**
+     * Returns the ids of a chunk of articles, as arguments of an 'IN (...)' clause
+     * @param articles The articles
+     * @param start The index of the first article of the chunk
+     * @return The ids of at most MAX_IDS_PER_STATEMENT articles
+     */
+    private static String[] getIds(List<Article> articles, int start) {
+        int end = Math.min(start + MAX_IDS_PER_STATEMENT, articles.size());
+        String[] ids = new String[end - start];
+        for(int i = start; i < end; i++){
+            ids[i - start] = String.valueOf(articles.get(i).getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the placeholders of an 'IN (...)' clause
+     * @param count The number of values
+     * @return The comma separated placeholders
+     */
+    private static String placeholders(int count) {
+        StringBuilder builder = new StringBuilder(count * 2);
+        for(int i = 0; i < count; i++){
+            builder.append(i == 0 ? "?" : ",?");
+        }
+        return builder.toString();
+    }
+
     /**
      * Takes an article out of a cursor
      * @param cursor The cursor with the article data
@@ -180,6 +812,11 @@ public class ArticleDataSource {
         article.setMeasure(cursor.getString(4));
         article.setStrikethrough(cursor.getInt(5) == 1);
         article.setPriority(cursor.getInt(6));
+        // The article is just as it is stored
+        article.clearDirtyFields(Article.ALL_FIELDS);
+        // Format the displayed amount here, off the main thread, so that binding the row doesn't
+        // allocate it while scrolling
+        article.getAmountText();
         return article;
     }
 
@@ -0,0 +1,235 @@
+package be.oreel.masi.shoppinglist.db;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import be.oreel.masi.shoppinglist.model.Article;
+import be.oreel.masi.shoppinglist.model.ArticleSorter;
+import be.oreel.masi.shoppinglist.model.ListOrder;
+import be.oreel.masi.shoppinglist.model.LongHashSet;
+
+/**
+ * Loads the articles of a shop page by page, in list order
+ * Each page starts after the key of the last loaded article (e.g. its priority and id)
+ * The operations which need the whole list wait until all the pages are loaded
+ */
+public class ArticlePager {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    // The number of articles of a page, enough to fill a few screens
+    public static final int PAGE_SIZE = 100;
+
+    private final ArticleRepository repository;
+    private final long shopId;
+    private final ListOrder order;
+    // Receives each loaded page
+    private final DBCallback<List<Article>> pageCallback;
+
+    // A copy of the last loaded article, its key is where the next page starts
+    private Article last = null;
+    // The ids of the loaded articles: an article edited after being loaded can move past the key
+    // of the last page (e.g. checked in the checked-last order), it is not shown twice
+    private final LongHashSet loadedIds = new LongHashSet();
+    private boolean loading = false;
+    private boolean allLoaded = false;
+    // Whether the cache was looked up, the articles of a shop opened shortly before are in memory
+    private boolean cacheChecked = false;
+    // Whether the shop is to be cached once the first page is shown (it wasn't cached)
+    private boolean cacheMissed = false;
+    // The actions waiting for all the pages to be loaded
+    private final List<Runnable> pendingActions = new ArrayList<>();
+    // The actions waiting for the page being loaded
+    private final List<Runnable> idleActions = new ArrayList<>();
+
+    // ===================
+    // === CONSTRUCTOR ===
+    // ===================
+
+    /**
+     * The constructor
+     * @param repository The article repository
+     * @param shopId The id of the shop of which the articles are loaded
+     * @param order The order of the articles
+     * @param pageCallback Receives each loaded page, on the main thread
+     */
+    public ArticlePager(ArticleRepository repository, long shopId, ListOrder order,
+                        DBCallback<List<Article>> pageCallback) {
+        this.repository = repository;
+        this.shopId = shopId;
+        this.order = order;
+        this.pageCallback = pageCallback;
+    }
+
+    // =================
+    // === FUNCTIONS ===
+    // =================
+
+    /**
+     * Loads the next page, unless a page is already being loaded or all the pages are loaded
+     * The first time, all the articles are taken from the cache if the shop is cached
+     */
+    public void loadNextPage() {
+        if(!cacheChecked){
+            loadCached();
+            return;
+        }
+        loadPage(PAGE_SIZE);
+    }
+
+    /**
+     * Returns whether or not all the articles are loaded
+     * @return Whether or not all the articles are loaded
+     */
+    public boolean isAllLoaded() {
+        return allLoaded;
+    }
+
+    /**
+     * Runs an action once all the articles are loaded, right away if they already are
+     * @param action The action needing the whole list
+     */
+    public void whenAllLoaded(Runnable action) {
+        if(allLoaded){
+            action.run();
+            return;
+        }
+        pendingActions.add(action);
+        if(!cacheChecked){
+            loadCached();
+            return;
+        }
+        // Load all the remaining articles at once (after the page being loaded, if any)
+        loadPage(0);
+    }
+
+    /**
+     * Takes over an article added to the shop after the pages started loading
+     * @param article The added article
+     * @param callback Receives the article if it comes among the loaded articles, it is to be shown
+     * now; not called if a page still to load holds the article
+     */
+    public void add(final Article article, final DBCallback<Article> callback) {
+        if(loading){
+            // The page being loaded may or may not hold the article, wait for it
+            idleActions.add(new Runnable() {
+                @Override
+                public void run() {
+                    add(article, callback);
+                }
+            });
+            return;
+        }
+        // Already loaded with a page, or coming after the last loaded article (in the next pages)
+        if(loadedIds.contains(article.getId()) || !allLoaded &&
+                (last == null || ArticleSorter.compare(article, last, order) > 0)){
+            return;
+        }
+        loadedIds.add(article.getId());
+        callback.onResult(article);
+    }
+
+    /**
+     * Loads all the articles from the cache at once, or the first page from the database if the
+     * shop is not cached
+     */
+    private void loadCached() {
+        if(loading){
+            return;
+        }
+        loading = true;
+        cacheChecked = true;
+        repository.getCachedArticles(shopId, order, new DBCallback<List<Article>>() {
+            @Override
+            public void onResult(List<Article> articles) {
+                loading = false;
+                if(articles == null){
+                    // Page through the database, the shop is cached once the first page is shown
+                    cacheMissed = true;
+                    loadPage(pendingActions.isEmpty() ? PAGE_SIZE : 0);
+                    return;
+                }
+                if(!articles.isEmpty()){
+                    last = new Article(articles.get(articles.size() - 1));
+                }
+                allLoaded = true;
+                for(Article article : articles){
+                    loadedIds.add(article.getId());
+                }
+                pageCallback.onResult(articles);
+                runPendingActions();
+                runIdleActions();
+            }
+        });
+    }
+
+    /**
+     * Loads the articles after the last loaded one
+     * @param limit The maximum number of articles, 0 to load all the remaining articles
+     */
+    private void loadPage(final int limit) {
+        if(loading || allLoaded){
+            return;
+        }
+        loading = true;
+        repository.getArticles(shopId, order, last, limit, new DBCallback<List<Article>>() {
+            @Override
+            public void onResult(List<Article> page) {
+                loading = false;
+                // Keep the key of the last article, the next page starts after it
+                // A copy, the shown article can be edited
+                if(!page.isEmpty()){
+                    last = new Article(page.get(page.size() - 1));
+                }
+                allLoaded = limit == 0 || page.size() < limit;
+                List<Article> newArticles = new ArrayList<>(page.size());
+                for(Article article : page){
+                    if(loadedIds.add(article.getId())){
+                        newArticles.add(article);
+                    }
+                }
+                pageCallback.onResult(newArticles);
+                if(cacheMissed){
+                    // Cache the shop for the next time, the first page didn't wait for it
+                    cacheMissed = false;
+                    repository.cacheArticles(shopId);
+                }
+                if(allLoaded){
+                    runPendingActions();
+                }
+                else if(!pendingActions.isEmpty()){
+                    // An action is waiting for the rest of the list
+                    loadPage(0);
+                }
+                runIdleActions();
+            }
+        });
+    }
+
+    /**
+     * Runs the actions which were waiting for all the articles to be loaded
+     */
+    private void runPendingActions() {
+        List<Runnable> actions = new ArrayList<>(pendingActions);
+        pendingActions.clear();
+        for(Runnable action : actions){
+            action.run();
+        }
+    }
+
+    /**
+     * Runs the actions which were waiting for the page being loaded, unless another page is loading
+     */
+    private void runIdleActions() {
+        if(loading || idleActions.isEmpty()){
+            return;
+        }
+        List<Runnable> actions = new ArrayList<>(idleActions);
+        idleActions.clear();
+        for(Runnable action : actions){
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package be.oreel.masi.shoppinglist.db;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.database.Cursor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import be.oreel.masi.shoppinglist.model.Article;
+import be.oreel.masi.shoppinglist.model.ArticleNameIndex;
+import be.oreel.masi.shoppinglist.model.ListOrder;
+import be.oreel.masi.shoppinglist.model.SearchResult;
+
+/**
+ * Asynchronous access to the articles
+ * All the ArticleDataSource calls are run on the database thread, results come back on the main thread
+ */
+public class ArticleRepository {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    // The number of names kept for the suggestions
+    public static final int MAX_SUGGESTED_NAMES = 2000;
+
+    // The repository shared by the whole app, with its compiled statements
+    private static ArticleRepository instance;
+
+    private final ArticleDataSource datasource;
+    // The updates held back so that quick edits of an article are written once
+    private final ArticleWriteBuffer writeBuffer;
+    // The names of the added articles, read from the database the first time they are needed
+    private final ArticleNameIndex nameIndex = new ArticleNameIndex(MAX_SUGGESTED_NAMES);
+    private boolean nameIndexRequested = false;
+    // Only used on the database thread: once loaded, the index follows the added articles
+    private boolean nameIndexLoaded = false;
+
+    // ===================
+    // === CONSTRUCTOR ===
+    // ===================
+
+    /**
+     * The constructor, opens the database on the database thread
+     * @param context The context
+     */
+    private ArticleRepository(Context context) {
+        datasource = new ArticleDataSource(context);
+        writeBuffer = new ArticleWriteBuffer(datasource);
+        // Give back the memory of the cached articles when the system runs low on it
+        context.getApplicationContext().registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                datasource.getCache().trim(level);
+            }
+
+            @Override
+            public void onLowMemory() {
+                datasource.getCache().trim(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {}
+        });
+        DBExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                datasource.open();
+            }
+        });
+    }
+
+    /**
+     * Returns the repository shared by the whole app
+     * @param context The context
+     * @return The shared repository
+     */
+    public static synchronized ArticleRepository getInstance(Context context) {
+        if(instance == null){
+            instance = new ArticleRepository(context);
+        }
+        return instance;
+    }
+
+    // ==========================
+    // === DATABASE FUNCTIONS ===
+    // ==========================
+    /**
+     * Adds an article to the database, after the last article of the shop
+     * @param shopId The id of the shop in which the article is added
+     * @param name The name of the article
+     * @param amount The amount of the article
+     * @param measure The measure of the article
+     * @param strikethrough Whether or not the element is strikethrough
+     * @param callback Receives the added article
+     */
+    public void createArticle(final long shopId, final String name, final int amount,
+                              final String measure, final boolean strikethrough,
+                              final DBCallback<Article> callback) {
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                // Read on the database thread, after the writes queued before (e.g. a moved article)
+                int priority = datasource.getNextPriority(shopId);
+                Article article = datasource.createArticle(
+                        shopId, name, amount, measure, strikethrough, priority);
+                addToNameIndex(Collections.singletonList(article));
+                DBExecutor.deliver(callback, article);
+            }
+        });
+    }
+
+    /**
+     * Returns the names of the added articles, for suggesting them
+     * The index is filled in the background the first time, it is empty until then
+     * @return The index of the names
+     */
+    public ArticleNameIndex getNameIndex() {
+        if(!nameIndexRequested){
+            nameIndexRequested = true;
+            // On the database thread, so that every added article is counted exactly once
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    datasource.loadNames(nameIndex, MAX_SUGGESTED_NAMES);
+                    nameIndexLoaded = true;
+                }
+            });
+        }
+        return nameIndex;
+    }
+
+    /**
+     * Updates the changed fields of the article, after a short delay during which the next edits
+     * of the article are merged with it (see ArticleWriteBuffer)
+     * @param article The article to update
+     */
+    public void updateArticle(Article article) {
+        writeBuffer.put(article);
+    }
+
+    /**
+     * Writes the updates still held back right away (e.g. when the app goes to the background)
+     */
+    public void flushPendingWrites() {
+        writeBuffer.flush();
+    }
+
+    /**
+     * Updates the priority of multiple articles in a single transaction
+     * @param articles The articles of which the priority has changed
+     */
+    public void updatePriorities(List<Article> articles) {
+        final List<Article> snapshots = new ArrayList<>(articles.size());
+        for(Article article : articles){
+            snapshots.add(new Article(article));
+            // The priority is now on its way to the database
+            article.clearDirtyFields(Article.FIELD_PRIORITY);
+        }
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                datasource.updatePriorities(snapshots);
+            }
+        });
+    }
+
+    /**
+     * Loads a cursor on all the articles of a shop, in list order
+     * @param shopId The id of the shop
+     * @param order The order of the articles
+     * @param callback Receives the cursor, which it has to close
+     */
+    public void getArticlesCursor(final long shopId, final ListOrder order,
+                                  final DBCallback<Cursor> callback) {
+        executeRead(new Runnable() {
+            @Override
+            public void run() {
+                DBExecutor.deliver(callback, datasource.getArticlesCursor(shopId, order));
+            }
+        });
+    }
+
+    /**
+     * Flips the strikethrough state of multiple articles in a single transaction
+     * @param articles The articles to flip, their new state is already set in memory
+     */
+    public void toggleStrikethrough(List<Article> articles) {
+        // A single article checked and unchecked in a row is written once, with its final state
+        if(articles.size() == 1 &&
+                (articles.get(0).getDirtyFields() & Article.FIELD_STRIKETHROUGH) != 0){
+            writeBuffer.put(articles.get(0));
+            return;
+        }
+        // Work on copies, the articles can be flipped again on the main thread
+        final List<Article> snapshots = new ArrayList<>(articles.size());
+        for(Article article : articles){
+            snapshots.add(new Article(article));
+            // The strikethrough state is now on its way to the database
+            article.clearDirtyFields(Article.FIELD_STRIKETHROUGH);
+        }
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                datasource.toggleStrikethrough(snapshots);
+            }
+        });
+    }
+
+    /**
+     * Flags articles as deleted, they can still be restored until they are purged
+     * @param articles The articles to delete
+     */
+    public void deleteArticles(List<Article> articles) {
+        setDeleted(articles, true);
+    }
+
+    /**
+     * Brings back articles flagged as deleted
+     * @param articles The articles to restore
+     */
+    public void restoreArticles(List<Article> articles) {
+        setDeleted(articles, false);
+    }
+
+    /**
+     * Definitively removes articles flagged as deleted
+     * @param articles The deleted articles
+     */
+    public void purgeArticles(List<Article> articles) {
+        final List<Article> snapshots = new ArrayList<>(articles);
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                datasource.purgeDeleted(snapshots);
+            }
+        });
+    }
+
+    /**
+     * Removes the articles of a shop still flagged as deleted (e.g. when the app was closed before
+     * the removal could no longer be undone)
+     * @param shopId The id of the shop
+     */
+    public void purgeDeleted(final long shopId) {
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                datasource.purgeDeleted(shopId);
+            }
+        });
+    }
+
+    /**
+     * Loads a page of the articles of a shop, in list order
+     * @param shopId The id of the shop
+     * @param order The order of the articles
+     * @param after The last article of the previous page (not changed afterwards), null for the first page
+     * @param limit The maximum number of articles, 0 to get all the remaining articles
+     * @param callback Receives the articles of the page
+     */
+    public void getArticles(final long shopId, final ListOrder order, final Article after,
+                            final int limit, final DBCallback<List<Article>> callback) {
+        // The read does not hold up the writes submitted after it
+        executeRead(new Runnable() {
+            @Override
+            public void run() {
+                DBExecutor.deliver(callback, datasource.getArticles(shopId, order, after, limit));
+            }
+        });
+    }
+
+    /**
+     * Loads all the articles of a shop from the cache, in list order
+     * @param shopId The id of the shop
+     * @param order The order of the articles
+     * @param callback Receives the articles, null if the shop is not cached
+     */
+    public void getCachedArticles(final long shopId, final ListOrder order,
+                                  final DBCallback<List<Article>> callback) {
+        // After the writes submitted before, which are applied to the cache as well
+        executeRead(new Runnable() {
+            @Override
+            public void run() {
+                DBExecutor.deliver(callback, datasource.getCachedArticles(shopId, order));
+            }
+        });
+    }
+
+    /**
+     * Reads all the articles of a shop into the cache in the background, the next opening of the
+     * shop doesn't read them from the database
+     * A shop too big for the cache is not read
+     * @param shopId The id of the shop
+     */
+    public void cacheArticles(final long shopId) {
+        // On the database thread, no write can come between the read and the caching
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                datasource.cacheArticles(shopId);
+            }
+        });
+    }
+
+    /**
+     * Returns the cache of the articles, e.g. to read its hit and miss counters
+     * @return The cache
+     */
+    public ArticleCache getCache() {
+        return datasource.getCache();
+    }
+
+    /**
+     * Searches the articles of all the shops by the words of their name
+     * @param text The searched text
+     * @param limit The maximum number of articles
+     * @param callback Receives the found articles with their shop
+     */
+    public void searchArticles(final String text, final int limit,
+                               final DBCallback<List<SearchResult>> callback) {
+        executeRead(new Runnable() {
+            @Override
+            public void run() {
+                DBExecutor.deliver(callback, datasource.searchArticles(text, limit));
+            }
+        });
+    }
+
+    /**
+     * Flags articles as deleted or brings them back
+     * @param articles The articles to flag
+     * @param deleted Whether the articles are deleted or restored
+     */
+    private void setDeleted(List<Article> articles, final boolean deleted) {
+        // Only the ids are used, a copy of the list is enough
+        final List<Article> snapshots = new ArrayList<>(articles);
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                datasource.setDeleted(snapshots, deleted);
+            }
+        });
+    }
+
+    /**
+     * Counts added articles in the name index, once it is loaded (on the database thread)
+     * @param articles The added articles
+     */
+    private void addToNameIndex(List<Article> articles) {
+        if(!nameIndexLoaded){
+            // They will be read with the others
+            return;
+        }
+        for(Article article : articles){
+            nameIndex.add(article.getName(), article.getId());
+        }
+    }
+
+    /**
+     * Runs a task on the database thread, after the updates still held back
+     * @param task The task to run
+     */
+    private void execute(Runnable task) {
+        writeBuffer.flush();
+        DBExecutor.execute(task);
+    }
+
+    /**
+     * Runs a read-only task next to the database thread, it sees the updates still held back
+     * @param task The task to run
+     */
+    private void executeRead(Runnable task) {
+        writeBuffer.flush();
+        DBExecutor.executeRead(task);
+    }
+}
@@ -0,0 +1,94 @@
+package be.oreel.masi.shoppinglist.db;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import be.oreel.masi.shoppinglist.model.Article;
+
+/**
+ * Holds back the article updates for a short while, so that quick edits of the same article
+ * (e.g. stepping its amount up a few times) end up as a single write
+ * The pending updates are keyed by article id and written in a single transaction
+ * Only used from the main thread
+ */
+public class ArticleWriteBuffer {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    // How long the updates wait for the next edit, in milliseconds
+    public static final long DEBOUNCE_DELAY = 500;
+
+    private final ArticleDataSource datasource;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    // The latest snapshot of each edited article, with all the fields changed since the last flush
+    private final Map<Long, Article> pending = new LinkedHashMap<>();
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    // ===================
+    // === CONSTRUCTOR ===
+    // ===================
+
+    /**
+     * The constructor
+     * @param datasource The datasource writing the updates, on the database thread
+     */
+    public ArticleWriteBuffer(ArticleDataSource datasource) {
+        this.datasource = datasource;
+    }
+
+    // =================
+    // === FUNCTIONS ===
+    // =================
+
+    /**
+     * Queues the changed fields of an article, merged with its updates still pending
+     * @param article The article to update
+     */
+    public void put(Article article) {
+        if(article.getDirtyFields() == 0){
+            return;
+        }
+        // Work on a copy, the article can still be changed on the main thread
+        Article snapshot = new Article(article);
+        Article previous = pending.put(article.getId(), snapshot);
+        if(previous != null){
+            // The newest values are written, for the fields changed by both edits
+            snapshot.markDirtyFields(previous.getDirtyFields());
+        }
+        // The changes are now on their way to the database
+        article.clearDirtyFields(article.getDirtyFields());
+        // Wait for the next edit again
+        handler.removeCallbacks(flushTask);
+        handler.postDelayed(flushTask, DEBOUNCE_DELAY);
+    }
+
+    /**
+     * Sends the pending updates to the database thread right away, in a single transaction
+     */
+    public void flush() {
+        handler.removeCallbacks(flushTask);
+        if(pending.isEmpty()){
+            return;
+        }
+        final List<Article> snapshots = new ArrayList<>(pending.values());
+        pending.clear();
+        DBExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                datasource.updateArticles(snapshots);
+            }
+        });
+    }
+}
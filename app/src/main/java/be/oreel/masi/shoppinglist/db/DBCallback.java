@@ -0,0 +1,8 @@
+package be.oreel.masi.shoppinglist.db;
+
+/**
+ * Interface for receiving the result of an asynchronous database operation on the main thread
+ */
+public interface DBCallback<T> {
+    void onResult(T result);
+}
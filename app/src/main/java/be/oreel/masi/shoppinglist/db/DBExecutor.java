@@ -0,0 +1,83 @@
+package be.oreel.masi.shoppinglist.db;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the database work off the main thread and delivers the results back on it
+ */
+public final class DBExecutor {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    // A single thread, so that all writes are applied one after the other in submission order
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor();
+    // The reads can run next to each other and next to the writer, thanks to write-ahead logging
+    private static final ExecutorService READERS = Executors.newFixedThreadPool(2);
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    // ===================
+    // === CONSTRUCTOR ===
+    // ===================
+
+    /**
+     * Static class, no instances
+     */
+    private DBExecutor(){}
+
+    // =================
+    // === FUNCTIONS ===
+    // =================
+
+    /**
+     * Runs a task on the database thread
+     * @param task The task to run
+     */
+    public static void execute(Runnable task){
+        WRITER.execute(task);
+    }
+
+    /**
+     * Runs a read-only task next to the database thread
+     * The task only starts once the writes submitted before it are done, so it sees them
+     * @param task The task to run, it must not write to the database
+     */
+    public static void executeRead(final Runnable task){
+        WRITER.execute(new Runnable() {
+            @Override
+            public void run() {
+                READERS.execute(task);
+            }
+        });
+    }
+
+    /**
+     * Runs a task on the main thread
+     * @param task The task to run
+     */
+    public static void postToMain(Runnable task){
+        MAIN_HANDLER.post(task);
+    }
+
+    /**
+     * Delivers a result to a callback on the main thread
+     * @param callback The callback to notify, ignored if null
+     * @param result The result to deliver
+     */
+    public static <T> void deliver(final DBCallback<T> callback, final T result){
+        if(callback == null){
+            return;
+        }
+        postToMain(new Runnable() {
+            @Override
+            public void run() {
+                callback.onResult(result);
+            }
+        });
+    }
+}
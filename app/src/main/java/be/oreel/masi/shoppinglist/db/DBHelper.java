@@ -17,6 +17,7 @@ public class DBHelper extends SQLiteOpenHelper {
 
     public static final String TABLE_SHOP = "shop";
     public static final String COLUMN_SHOP_NAME = "name";
+    public static final String COLUMN_LIST_ORDER = "list_order";
 
     public static final String TABLE_ARTICLE = "article";
     public static final String COLUMN_SHOP_ID = "shop_id";
@@ -25,15 +26,27 @@ public class DBHelper extends SQLiteOpenHelper {
     public static final String COLUMN_MEASURE = "measure";
     public static final String COLUMN_STRIKETHROUGH = "strikethrough";
     public static final String COLUMN_PRIORITY = "priority";
+    public static final String COLUMN_DELETED = "deleted";
+
+    // The full-text index of the article names, its docid is the id of the article
+    public static final String TABLE_ARTICLE_FTS = "article_fts";
+
+    public static final String INDEX_ARTICLE_SHOP_PRIORITY = "article_shop_priority";
+    public static final String INDEX_ARTICLE_SHOP_NAME = "article_shop_name";
+    public static final String INDEX_ARTICLE_SHOP_CHECKED = "article_shop_checked";
+
+    // The collation of Android comparing the names in the language of the user
+    public static final String COLLATE_LOCALIZED = " COLLATE LOCALIZED";
 
     private static final String DATABASE_NAME = "article.db";
-    private static final int DATABASE_VERSION = 4;
+    private static final int DATABASE_VERSION = 8;
 
     // Database creation sql statement
     private static final String DATABASE_CREATE_SHOP =
             "CREATE TABLE IF NOT EXISTS " + TABLE_SHOP +"( "+
                     COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    COLUMN_SHOP_NAME + " TEXT NOT NULL UNIQUE);";
+                    COLUMN_SHOP_NAME + " TEXT NOT NULL UNIQUE," +
+                    COLUMN_LIST_ORDER + " TEXT NOT NULL DEFAULT 'MANUAL');";
 
     private static final String DATABASE_CREATE_ARTICLE =
             "CREATE TABLE IF NOT EXISTS " + TABLE_ARTICLE +"( "+
@@ -46,8 +59,52 @@ public class DBHelper extends SQLiteOpenHelper {
             COLUMN_STRIKETHROUGH + " INTEGER NOT NULL DEFAULT 0 CHECK("+
                     COLUMN_STRIKETHROUGH+" IN (0,1))," +
             COLUMN_PRIORITY + " INTEGER NOT NULL DEFAULT 0," +
+            COLUMN_DELETED + " INTEGER NOT NULL DEFAULT 0 CHECK(" +
+                    COLUMN_DELETED + " IN (0,1))," +
             " FOREIGN KEY(" + COLUMN_SHOP_ID + ") REFERENCES " + TABLE_SHOP + "("+COLUMN_ID+"));";
 
+    // Serves the articles of a shop in their order without scanning the whole table
+    private static final String DATABASE_CREATE_ARTICLE_INDEX =
+            "CREATE INDEX IF NOT EXISTS " + INDEX_ARTICLE_SHOP_PRIORITY + " ON " +
+            TABLE_ARTICLE + "(" + COLUMN_SHOP_ID + ", " + COLUMN_PRIORITY + ");";
+
+    // Serve the articles of a shop sorted by name or with the checked ones last
+    private static final String DATABASE_CREATE_ARTICLE_NAME_INDEX =
+            "CREATE INDEX IF NOT EXISTS " + INDEX_ARTICLE_SHOP_NAME + " ON " +
+            TABLE_ARTICLE + "(" + COLUMN_SHOP_ID + ", " + COLUMN_ARTICLE_NAME + COLLATE_LOCALIZED + ");";
+    private static final String DATABASE_CREATE_ARTICLE_CHECKED_INDEX =
+            "CREATE INDEX IF NOT EXISTS " + INDEX_ARTICLE_SHOP_CHECKED + " ON " +
+            TABLE_ARTICLE + "(" + COLUMN_SHOP_ID + ", " + COLUMN_STRIKETHROUGH + ", " +
+            COLUMN_PRIORITY + ");";
+
+    // The full-text index only stores the words of the names, the names are read from the article table
+    private static final String DATABASE_CREATE_ARTICLE_FTS =
+            "CREATE VIRTUAL TABLE IF NOT EXISTS " + TABLE_ARTICLE_FTS + " USING fts4(" +
+            "content=\"" + TABLE_ARTICLE + "\", " + COLUMN_ARTICLE_NAME + ");";
+
+    // Keep the full-text index in sync with the names of the articles
+    // The old words are removed before the row changes, the new ones added after it
+    // Only a change of the name touches the index, not the other updates (e.g. a strikethrough)
+    private static final String[] DATABASE_CREATE_ARTICLE_FTS_TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS " + TABLE_ARTICLE_FTS + "_before_update " +
+            "BEFORE UPDATE OF " + COLUMN_ARTICLE_NAME + " ON " + TABLE_ARTICLE + " BEGIN " +
+            "DELETE FROM " + TABLE_ARTICLE_FTS + " WHERE docid = old." + COLUMN_ID + "; END;",
+            "CREATE TRIGGER IF NOT EXISTS " + TABLE_ARTICLE_FTS + "_before_delete " +
+            "BEFORE DELETE ON " + TABLE_ARTICLE + " BEGIN " +
+            "DELETE FROM " + TABLE_ARTICLE_FTS + " WHERE docid = old." + COLUMN_ID + "; END;",
+            "CREATE TRIGGER IF NOT EXISTS " + TABLE_ARTICLE_FTS + "_after_update " +
+            "AFTER UPDATE OF " + COLUMN_ARTICLE_NAME + " ON " + TABLE_ARTICLE + " BEGIN " +
+            "INSERT INTO " + TABLE_ARTICLE_FTS + "(docid, " + COLUMN_ARTICLE_NAME + ") " +
+            "VALUES (new." + COLUMN_ID + ", new." + COLUMN_ARTICLE_NAME + "); END;",
+            "CREATE TRIGGER IF NOT EXISTS " + TABLE_ARTICLE_FTS + "_after_insert " +
+            "AFTER INSERT ON " + TABLE_ARTICLE + " BEGIN " +
+            "INSERT INTO " + TABLE_ARTICLE_FTS + "(docid, " + COLUMN_ARTICLE_NAME + ") " +
+            "VALUES (new." + COLUMN_ID + ", new." + COLUMN_ARTICLE_NAME + "); END;",
+    };
+
+    // The helper shared by the whole app, its connection stays open for the app lifetime
+    private static DBHelper instance;
+
     // ===================
     // === CONSTRUCTOR ===
     // ===================
@@ -56,8 +113,23 @@ public class DBHelper extends SQLiteOpenHelper {
      * The constructor
      * @param context The context
      */
-    public DBHelper(Context context) {
+    private DBHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        // Readers are no longer blocked while the database thread commits
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    /**
+     * Returns the helper shared by the whole app
+     * @param context The context
+     * @return The shared helper
+     */
+    public static synchronized DBHelper getInstance(Context context) {
+        if(instance == null){
+            // Keep the application context, not the activity
+            instance = new DBHelper(context.getApplicationContext());
+        }
+        return instance;
     }
 
     // ========================================
@@ -72,6 +144,13 @@ public class DBHelper extends SQLiteOpenHelper {
     public void onCreate(SQLiteDatabase database) {
         database.execSQL(DATABASE_CREATE_SHOP);
         database.execSQL(DATABASE_CREATE_ARTICLE);
+        database.execSQL(DATABASE_CREATE_ARTICLE_INDEX);
+        database.execSQL(DATABASE_CREATE_ARTICLE_NAME_INDEX);
+        database.execSQL(DATABASE_CREATE_ARTICLE_CHECKED_INDEX);
+        database.execSQL(DATABASE_CREATE_ARTICLE_FTS);
+        for(String trigger : DATABASE_CREATE_ARTICLE_FTS_TRIGGERS){
+            database.execSQL(trigger);
+        }
     }
 
     /**
@@ -82,9 +161,16 @@ public class DBHelper extends SQLiteOpenHelper {
      */
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_ARTICLE);
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_SHOP);
-        // Recreate the database
-        onCreate(db);
+        // Databases older than the first migration are recreated
+        if(oldVersion < Migrations.FIRST_MIGRATABLE_VERSION){
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_ARTICLE_FTS);
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_ARTICLE);
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_SHOP);
+            // Recreate the database
+            onCreate(db);
+            return;
+        }
+        // Apply the schema changes step by step, keeping the data
+        Migrations.migrate(db, oldVersion, newVersion);
     }
 }
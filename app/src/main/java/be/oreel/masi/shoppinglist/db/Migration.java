@@ -0,0 +1,61 @@
+package be.oreel.masi.shoppinglist.db;
+
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * A step of the database schema upgrade, bringing the database from the previous version to its version
+ * A migration keeps the data of the users, it never drops a table holding their lists
+ */
+public abstract class Migration {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    private final int version;
+    private final String description;
+
+    // ===================
+    // === CONSTRUCTOR ===
+    // ===================
+
+    /**
+     * The constructor
+     * @param version The version of the database once migrated
+     * @param description What the migration changes, for the logs
+     */
+    protected Migration(int version, String description) {
+        this.version = version;
+        this.description = description;
+    }
+
+    // =================
+    // === FUNCTIONS ===
+    // =================
+
+    /**
+     * Applies the schema changes of this version
+     * @param db The database, at the previous version
+     */
+    public abstract void migrate(SQLiteDatabase db);
+
+    // ===============
+    // === GETTERS ===
+    // ===============
+
+    /**
+     * Returns the version of the database once migrated
+     * @return The version of the database once migrated
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns what the migration changes
+     * @return What the migration changes
+     */
+    public String getDescription() {
+        return description;
+    }
+}
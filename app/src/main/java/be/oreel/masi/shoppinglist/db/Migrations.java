@@ -0,0 +1,120 @@
+package be.oreel.masi.shoppinglist.db;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * The ordered list of the database migrations, from version 4 onward
+ * A new schema version only needs a new migration at the end of the list
+ */
+public final class Migrations {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    private static final String TAG = "Migrations";
+
+    // The oldest version which can be migrated, older databases are recreated
+    public static final int FIRST_MIGRATABLE_VERSION = 4;
+
+    // The migrations, ordered by version
+    // The sql is written out as it was at that version, later changes to DBHelper must not alter it
+    private static final Migration[] MIGRATIONS = {
+            new Migration(5, "Add the deleted flag of the articles") {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    db.execSQL("ALTER TABLE article ADD COLUMN deleted " +
+                            "INTEGER NOT NULL DEFAULT 0 CHECK(deleted IN (0,1))");
+                }
+            },
+            new Migration(6, "Index the articles by shop and priority") {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    db.execSQL("CREATE INDEX IF NOT EXISTS article_shop_priority " +
+                            "ON article(shop_id, priority)");
+                }
+            },
+            new Migration(7, "Keep the order of the articles per shop") {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    db.execSQL("ALTER TABLE shop ADD COLUMN list_order " +
+                            "TEXT NOT NULL DEFAULT 'MANUAL'");
+                    db.execSQL("CREATE INDEX IF NOT EXISTS article_shop_name " +
+                            "ON article(shop_id, name COLLATE LOCALIZED)");
+                    db.execSQL("CREATE INDEX IF NOT EXISTS article_shop_checked " +
+                            "ON article(shop_id, strikethrough, priority)");
+                }
+            },
+            new Migration(8, "Index the words of the article names") {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS article_fts " +
+                            "USING fts4(content=\"article\", name)");
+                    db.execSQL("CREATE TRIGGER IF NOT EXISTS article_fts_before_update " +
+                            "BEFORE UPDATE OF name ON article BEGIN " +
+                            "DELETE FROM article_fts WHERE docid = old._id; END");
+                    db.execSQL("CREATE TRIGGER IF NOT EXISTS article_fts_before_delete " +
+                            "BEFORE DELETE ON article BEGIN " +
+                            "DELETE FROM article_fts WHERE docid = old._id; END");
+                    db.execSQL("CREATE TRIGGER IF NOT EXISTS article_fts_after_update " +
+                            "AFTER UPDATE OF name ON article BEGIN " +
+                            "INSERT INTO article_fts(docid, name) VALUES (new._id, new.name); END");
+                    db.execSQL("CREATE TRIGGER IF NOT EXISTS article_fts_after_insert " +
+                            "AFTER INSERT ON article BEGIN " +
+                            "INSERT INTO article_fts(docid, name) VALUES (new._id, new.name); END");
+                    // Index the names of the existing articles
+                    db.execSQL("INSERT INTO article_fts(article_fts) VALUES ('rebuild')");
+                }
+            },
+    };
+
+    // ===================
+    // === CONSTRUCTOR ===
+    // ===================
+
+    /**
+     * Static class, no instances
+     */
+    private Migrations(){}
+
+    // =================
+    // === FUNCTIONS ===
+    // =================
+
+    /**
+     * Runs all the migrations between two versions, in order
+     * SQLiteOpenHelper calls onUpgrade inside a transaction: if a step fails,
+     * none of the steps are kept and the database stays at its old version
+     * @param db The database
+     * @param oldVersion The current version of the database
+     * @param newVersion The version to reach
+     */
+    public static void migrate(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if(oldVersion < FIRST_MIGRATABLE_VERSION){
+            throw new IllegalArgumentException("No migration from version " + oldVersion);
+        }
+        long start = SystemClock.elapsedRealtime();
+        int version = oldVersion;
+        for(Migration migration : MIGRATIONS){
+            if(migration.getVersion() <= oldVersion || migration.getVersion() > newVersion){
+                continue;
+            }
+            // The steps have to follow each other without any gap
+            if(migration.getVersion() != version + 1){
+                throw new IllegalStateException("Missing migration to version " + (version + 1));
+            }
+            long stepStart = SystemClock.elapsedRealtime();
+            migration.migrate(db);
+            version = migration.getVersion();
+            Log.i(TAG, "Migrated to version " + version + " (" + migration.getDescription() +
+                    ") in " + (SystemClock.elapsedRealtime() - stepStart) + " ms");
+        }
+        if(version != newVersion){
+            throw new IllegalStateException("Missing migration to version " + (version + 1));
+        }
+        Log.i(TAG, "Migrated from version " + oldVersion + " to " + newVersion + " in " +
+                (SystemClock.elapsedRealtime() - start) + " ms");
+    }
+}
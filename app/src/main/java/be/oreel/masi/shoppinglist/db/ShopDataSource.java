@@ -5,12 +5,14 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 
-import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-import be.oreel.masi.shoppinglist.model.Article;
+import be.oreel.masi.shoppinglist.model.ListOrder;
 import be.oreel.masi.shoppinglist.model.Shop;
 
 /**
@@ -22,11 +24,17 @@ public class ShopDataSource {
     // === VARIABLES ===
     // =================
 
+    // Adds a shop unless one with the same name exists
+    private static final String SQL_INSERT_OR_IGNORE =
+            "INSERT OR IGNORE INTO " + DBHelper.TABLE_SHOP +
+            " (" + DBHelper.COLUMN_SHOP_NAME + ") VALUES (?)";
+
     private SQLiteDatabase database;
     private DBHelper dbHelper;
     private String[] allColumns = {
             DBHelper.COLUMN_ID,
-            DBHelper.COLUMN_SHOP_NAME};
+            DBHelper.COLUMN_SHOP_NAME,
+            DBHelper.COLUMN_LIST_ORDER};
 
     // ===================
     // === CONSTRUCTOR ===
@@ -37,7 +45,7 @@ public class ShopDataSource {
      * @param context The context
      */
     public ShopDataSource(Context context) {
-        dbHelper = new DBHelper(context);
+        dbHelper = DBHelper.getInstance(context);
     }
 
     // ==========================
@@ -52,41 +60,86 @@ public class ShopDataSource {
         database = dbHelper.getWritableDatabase();
     }
 
-    /**
-     * Closes the database
-     */
-    public void close() {
-        dbHelper.close();
-    }
 
     /**
-     * Returns the shop object with the given name from the database
+     * Returns the shop object with the given name from the database, added if it doesn't exist yet
      * @param shopName The name of the shop
      * @return The shop with the given name
      */
     public Shop getShop(String shopName) {
-        // Get the shop with the given shop name
-        Cursor cursor = database.query(DBHelper.TABLE_SHOP,
-                allColumns, DBHelper.COLUMN_SHOP_NAME + " = '" + shopName + "'",
-                null, null, null, null);
-        // If the shop doesn't exist yet, add it
-        if(cursor.getCount() == 0){
-            // Add all the values of the article
-            ContentValues values = new ContentValues();
-            values.put(DBHelper.COLUMN_SHOP_NAME, shopName);
-            // Insert the article in the database
-            long insertId = database.insert(DBHelper.TABLE_SHOP, null, values);
-            // Take the data of the new article with its newly created id
-            cursor = database.query(DBHelper.TABLE_SHOP,
-                    allColumns, DBHelper.COLUMN_ID + " = " + insertId,
-                    null, null, null, null);
+        return getShops(Collections.singletonList(shopName)).get(shopName);
+    }
+
+    /**
+     * Returns the shops with the given names from the database, the missing ones are added first
+     * Every shop is added with a single statement, all the shops are then read with a single query
+     * @param shopNames The names of the shops
+     * @return The shops by name
+     */
+    public Map<String, Shop> getShops(List<String> shopNames) {
+        Map<String, Shop> shops = new HashMap<>(shopNames.size() * 4 / 3 + 1);
+        if(shopNames.isEmpty()){
+            return shops;
+        }
+        SQLiteStatement statement = database.compileStatement(SQL_INSERT_OR_IGNORE);
+        database.beginTransaction();
+        try {
+            // Add the shops which don't exist yet, the unique name leaves the others untouched
+            for(String shopName : shopNames){
+                statement.bindString(1, shopName);
+                statement.executeInsert();
+            }
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+            statement.close();
+        }
+        // Read all the shops at once
+        StringBuilder placeholders = new StringBuilder(shopNames.size() * 3);
+        for(int i = 0; i < shopNames.size(); i++){
+            placeholders.append(i == 0 ? "?" : ", ?");
+        }
+        Cursor cursor = database.query(DBHelper.TABLE_SHOP, allColumns,
+                DBHelper.COLUMN_SHOP_NAME + " IN (" + placeholders + ")",
+                shopNames.toArray(new String[shopNames.size()]), null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                Shop shop = cursorToShop(cursor);
+                shops.put(shop.getName(), shop);
+            }
+        } finally {
+            // make sure to close the cursor
+            cursor.close();
         }
-        // Get the shop out of the cursor
-        cursor.moveToFirst();
-        Shop shop = cursorToShop(cursor);
-        cursor.close();
+        return shops;
+    }
 
-        return shop;
+    /**
+     * Sets the order in which the articles of a shop are shown
+     * @param shopId The id of the shop
+     * @param order The order of the articles
+     */
+    public void updateListOrder(long shopId, ListOrder order) {
+        ContentValues values = new ContentValues();
+        values.put(DBHelper.COLUMN_LIST_ORDER, order.name());
+        database.update(DBHelper.TABLE_SHOP, values, DBHelper.COLUMN_ID + " = ?",
+                new String[]{String.valueOf(shopId)});
+    }
+
+    /**
+     * Reads a stored list order
+     * @param value The name of the order
+     * @return The order, manual if it is missing or unknown
+     */
+    static ListOrder toListOrder(String value) {
+        if(value == null){
+            return ListOrder.MANUAL;
+        }
+        try {
+            return ListOrder.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            return ListOrder.MANUAL;
+        }
     }
 
     /**
@@ -99,6 +152,7 @@ public class ShopDataSource {
         Shop shop = new Shop();
         shop.setId(cursor.getLong(0));
         shop.setName(cursor.getString(1));
+        shop.setListOrder(toListOrder(cursor.getString(2)));
         return shop;
     }
 
@@ -0,0 +1,163 @@
+package be.oreel.masi.shoppinglist.db;
+
+import android.content.Context;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import be.oreel.masi.shoppinglist.model.ListOrder;
+import be.oreel.masi.shoppinglist.model.Shop;
+
+/**
+ * Asynchronous access to the shops
+ * All the ShopDataSource calls are run on the database thread
+ * The shops are read once and kept by name, looking a shop up afterwards doesn't touch the database
+ */
+public class ShopRepository {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    // The repository shared by the whole app
+    private static ShopRepository instance;
+
+    private final ShopDataSource datasource;
+    // The loaded shops by name, null until they are loaded (only used on the main thread)
+    private Map<String, Shop> shops;
+    private boolean loading = false;
+    // The lookups waiting for the shops to be loaded
+    private final List<Runnable> pendingLookups = new ArrayList<>();
+
+    // ===================
+    // === CONSTRUCTOR ===
+    // ===================
+
+    /**
+     * The constructor, opens the database on the database thread
+     * @param context The context
+     */
+    private ShopRepository(Context context) {
+        datasource = new ShopDataSource(context);
+        DBExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                datasource.open();
+            }
+        });
+    }
+
+    /**
+     * Returns the repository shared by the whole app
+     * @param context The context
+     * @return The shared repository
+     */
+    public static synchronized ShopRepository getInstance(Context context) {
+        if(instance == null){
+            instance = new ShopRepository(context);
+        }
+        return instance;
+    }
+
+    // ==========================
+    // === DATABASE FUNCTIONS ===
+    // ==========================
+
+    /**
+     * Loads the shops in the background, the missing ones are added to the database
+     * @param shopNames The names of the shops
+     */
+    public void loadShops(final List<String> shopNames) {
+        if(shops != null || loading){
+            return;
+        }
+        loading = true;
+        final List<String> names = new ArrayList<>(shopNames);
+        DBExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                DBExecutor.deliver(new DBCallback<Map<String, Shop>>() {
+                    @Override
+                    public void onResult(Map<String, Shop> result) {
+                        loading = false;
+                        shops = result;
+                        runPendingLookups();
+                    }
+                }, datasource.getShops(names));
+            }
+        });
+    }
+
+    /**
+     * Returns a shop by name, from memory once the shops are loaded
+     * A shop which wasn't loaded is read (or added) in the background
+     * @param shopName The name of the shop
+     * @param callback Receives the shop, right away if it is already loaded
+     */
+    public void getShop(final String shopName, final DBCallback<Shop> callback) {
+        if(shops == null){
+            // Wait for the shops being loaded
+            pendingLookups.add(new Runnable() {
+                @Override
+                public void run() {
+                    getShop(shopName, callback);
+                }
+            });
+            if(!loading){
+                loadShops(new ArrayList<String>());
+            }
+            return;
+        }
+        Shop shop = shops.get(shopName);
+        if(shop != null){
+            callback.onResult(shop);
+            return;
+        }
+        DBExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                DBExecutor.deliver(new DBCallback<Shop>() {
+                    @Override
+                    public void onResult(Shop result) {
+                        shops.put(result.getName(), result);
+                        callback.onResult(result);
+                    }
+                }, datasource.getShop(shopName));
+            }
+        });
+    }
+
+    /**
+     * Sets the order in which the articles of a shop are shown
+     * @param shopId The id of the shop
+     * @param order The order of the articles
+     */
+    public void updateListOrder(final long shopId, final ListOrder order) {
+        // Keep the loaded shop in sync, it is opened with this order next time
+        if(shops != null){
+            for(Shop shop : shops.values()){
+                if(shop.getId() == shopId){
+                    shop.setListOrder(order);
+                }
+            }
+        }
+        DBExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                datasource.updateListOrder(shopId, order);
+            }
+        });
+    }
+
+    /**
+     * Runs the lookups which were waiting for the shops to be loaded
+     */
+    private void runPendingLookups() {
+        List<Runnable> lookups = new ArrayList<>(pendingLookups);
+        pendingLookups.clear();
+        for(Runnable lookup : lookups){
+            lookup.run();
+        }
+    }
+}
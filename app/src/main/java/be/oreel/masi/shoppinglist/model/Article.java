@@ -2,6 +2,9 @@ package be.oreel.masi.shoppinglist.model;
 
 import android.support.annotation.NonNull;
 
+import java.text.CollationKey;
+import java.text.Collator;
+
 /**
  * The article model
  */
@@ -11,6 +14,15 @@ public class Article implements Comparable<Article> {
     // === VARIABLES ===
     // =================
 
+    // The fields which can be changed after the article is stored, one bit each
+    public static final int FIELD_NAME = 1;
+    public static final int FIELD_AMOUNT = 1 << 1;
+    public static final int FIELD_MEASURE = 1 << 2;
+    public static final int FIELD_STRIKETHROUGH = 1 << 3;
+    public static final int FIELD_PRIORITY = 1 << 4;
+    public static final int ALL_FIELDS = FIELD_NAME | FIELD_AMOUNT | FIELD_MEASURE |
+            FIELD_STRIKETHROUGH | FIELD_PRIORITY;
+
     private long id;
     private long shopId;
     private String name;
@@ -18,6 +30,38 @@ public class Article implements Comparable<Article> {
     private String measure;
     private boolean strikethrough;
     private int priority;
+    // The amount & measure as displayed, built once until one of them changes
+    private String amountText;
+    // The sort key of the name, built once until the name changes (see ArticleSorter)
+    private CollationKey nameKey;
+    private Collator nameKeyCollator;
+    // The fields changed since the article was last stored
+    private int dirtyFields;
+
+    // ===================
+    // === CONSTRUCTOR ===
+    // ===================
+
+    /**
+     * Empty constructor for database
+     */
+    public Article(){}
+
+    /**
+     * Copy constructor, used to hand a stable snapshot of an article to the database thread
+     * @param article The article to copy
+     */
+    public Article(Article article){
+        this.id = article.id;
+        this.shopId = article.shopId;
+        this.name = article.name;
+        this.amount = article.amount;
+        this.measure = article.measure;
+        this.strikethrough = article.strikethrough;
+        this.priority = article.priority;
+        this.amountText = article.amountText;
+        this.dirtyFields = article.dirtyFields;
+    }
 
     // =======================
     // === IMPLEMENTATIONS ===
@@ -29,7 +73,7 @@ public class Article implements Comparable<Article> {
      */
     @Override
     public String toString(){
-        return getAmount() + (getMeasure() != null ? getMeasure() : "") + " " + getName();
+        return getAmountText() + " " + getName();
     }
 
     /**
@@ -92,7 +136,24 @@ public class Article implements Comparable<Article> {
      * @param name The name to be set
      */
     public void setName(String name) {
-        this.name = name;
+        if(name == null ? this.name != null : !name.equals(this.name)){
+            this.name = name;
+            this.nameKey = null;
+            this.dirtyFields |= FIELD_NAME;
+        }
+    }
+
+    /**
+     * Returns the sort key of the name, cached until the name or the collator changes
+     * @param collator The collator building the key
+     * @return The collation key of the name
+     */
+    public CollationKey getNameKey(Collator collator) {
+        if(nameKey == null || nameKeyCollator != collator){
+            nameKey = collator.getCollationKey(name != null ? name : "");
+            nameKeyCollator = collator;
+        }
+        return nameKey;
     }
 
     /**
@@ -108,7 +169,12 @@ public class Article implements Comparable<Article> {
      * @param amount The amount to be set
      */
     public void setAmount(int amount) {
-        this.amount = amount > 0 ? amount : 1;
+        amount = amount > 0 ? amount : 1;
+        if(amount != this.amount){
+            this.amount = amount;
+            this.amountText = null;
+            this.dirtyFields |= FIELD_AMOUNT;
+        }
     }
 
     /**
@@ -124,7 +190,22 @@ public class Article implements Comparable<Article> {
      * @param measure The new measure
      */
     public void setMeasure(String measure){
-        this.measure = measure;
+        if(measure == null ? this.measure != null : !measure.equals(this.measure)){
+            this.measure = measure;
+            this.amountText = null;
+            this.dirtyFields |= FIELD_MEASURE;
+        }
+    }
+
+    /**
+     * Returns the amount followed by the measure (e.g. "2kg"), cached until either changes
+     * @return The displayed amount of the article
+     */
+    public String getAmountText(){
+        if(amountText == null){
+            amountText = getAmount() + (getMeasure() != null ? getMeasure() : "");
+        }
+        return amountText;
     }
 
     /**
@@ -140,7 +221,10 @@ public class Article implements Comparable<Article> {
      * @param strikethrough Whether or not the article is strikethrough
      */
     public void setStrikethrough(boolean strikethrough) {
-        this.strikethrough = strikethrough;
+        if(strikethrough != this.strikethrough){
+            this.strikethrough = strikethrough;
+            this.dirtyFields |= FIELD_STRIKETHROUGH;
+        }
     }
 
     /**
@@ -156,6 +240,33 @@ public class Article implements Comparable<Article> {
      * @param priority The priority to be set
      */
     public void setPriority(int priority) {
-        this.priority = priority;
+        if(priority != this.priority){
+            this.priority = priority;
+            this.dirtyFields |= FIELD_PRIORITY;
+        }
+    }
+
+    /**
+     * Returns the fields changed since the article was last stored
+     * @return The FIELD_* bits of the changed fields
+     */
+    public int getDirtyFields() {
+        return dirtyFields;
+    }
+
+    /**
+     * Marks fields as changed since the article was last stored
+     * @param fields The FIELD_* bits of the changed fields
+     */
+    public void markDirtyFields(int fields) {
+        this.dirtyFields |= fields;
+    }
+
+    /**
+     * Marks fields as stored
+     * @param fields The FIELD_* bits of the stored fields
+     */
+    public void clearDirtyFields(int fields) {
+        this.dirtyFields &= ~fields;
     }
 }
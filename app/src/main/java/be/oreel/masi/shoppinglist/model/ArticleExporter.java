@@ -0,0 +1,128 @@
+package be.oreel.masi.shoppinglist.model;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes articles as text, in one of the export formats
+ * The articles are streamed into a single buffer (or any Appendable, e.g. a Writer), without
+ * building a string per article
+ */
+public final class ArticleExporter {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    private static final String CSV_HEADER = "name,amount,measure,checked\n";
+    private static final String COMPACT_SEPARATOR = ", ";
+
+    // ===================
+    // === CONSTRUCTOR ===
+    // ===================
+
+    /**
+     * Static class, no instances
+     */
+    private ArticleExporter(){}
+
+    // =================
+    // === FUNCTIONS ===
+    // =================
+
+    /**
+     * Returns the articles as text
+     * @param articles The articles, in list order
+     * @param format The format of the text
+     * @return The text of the articles
+     */
+    public static String export(List<Article> articles, ExportFormat format){
+        // Size the buffer once for the whole list
+        StringBuilder builder = new StringBuilder(estimateLength(articles, format));
+        try {
+            write(articles, format, builder);
+        } catch (IOException e) {
+            // A StringBuilder never throws
+            throw new IllegalStateException(e);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Writes the articles as text
+     * @param articles The articles, in list order
+     * @param format The format of the text
+     * @param out Where the text is written
+     * @throws IOException If the text could not be written
+     */
+    public static void write(List<Article> articles, ExportFormat format, Appendable out)
+            throws IOException {
+        if(format == ExportFormat.CSV){
+            out.append(CSV_HEADER);
+        }
+        for(int i = 0; i < articles.size(); i++){
+            Article article = articles.get(i);
+            switch (format){
+                case CSV:
+                    appendCsv(out, article.getName());
+                    out.append(',').append(String.valueOf(article.getAmount())).append(',');
+                    appendCsv(out, article.getMeasure() != null ? article.getMeasure() : "");
+                    out.append(',').append(article.isStrikethrough() ? '1' : '0').append('\n');
+                    break;
+                case COMPACT:
+                    if(i > 0){
+                        out.append(COMPACT_SEPARATOR);
+                    }
+                    out.append(article.getAmountText()).append(' ').append(article.getName());
+                    break;
+                default:
+                    out.append(article.getAmountText()).append(' ')
+                            .append(article.getName()).append('\n');
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Estimates the length of the text of the articles, so that the buffer is not grown while writing
+     * @param articles The articles
+     * @param format The format of the text
+     * @return The estimated number of characters
+     */
+    private static int estimateLength(List<Article> articles, ExportFormat format){
+        int length = format == ExportFormat.CSV ? CSV_HEADER.length() : 0;
+        for(Article article : articles){
+            // The name, the amount and measure, and the separators (plus a few quotes in CSV)
+            length += article.getName().length() + article.getAmountText().length() + 8;
+        }
+        return length;
+    }
+
+    /**
+     * Writes a CSV field, quoted if it contains a separator, a quote or a line break
+     * @param out Where the field is written
+     * @param value The value of the field
+     * @throws IOException If the field could not be written
+     */
+    private static void appendCsv(Appendable out, String value) throws IOException {
+        boolean quoted = false;
+        for(int i = 0; i < value.length() && !quoted; i++){
+            char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if(!quoted){
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for(int i = 0; i < value.length(); i++){
+            char c = value.charAt(i);
+            // Quotes are doubled
+            if(c == '"'){
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,194 @@
+package be.oreel.masi.shoppinglist.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The names of the articles already added, looked up by their first letters
+ * The names are kept sorted (ignoring case), the ones starting with a prefix are found by a
+ * binary search and ranked by how often and how recently they were added
+ * The number of names is bounded, the lowest ranked name makes room for a new one
+ * Thread safe: it is filled on the database thread and looked up while the user types
+ */
+public class ArticleNameIndex {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    // The number of articles added since a name was last added after which it counts half as much
+    public static final int RECENCY_SPAN = 100;
+
+    private final int maxNames;
+    // The names, sorted by key
+    private final List<Entry> entries = new ArrayList<>();
+    // The id of the last added article, the recency of a name is measured from it
+    private long latestId;
+
+    /**
+     * A name with its use
+     */
+    private static class Entry {
+        // The name as it was last added
+        String name;
+        // The lower case name, the sort and search key
+        final String key;
+        // The number of articles added with this name
+        int count;
+        // The id of the last article added with this name
+        long lastId;
+
+        Entry(String name, String key) {
+            this.name = name;
+            this.key = key;
+        }
+    }
+
+    // ===================
+    // === CONSTRUCTOR ===
+    // ===================
+
+    /**
+     * The constructor
+     * @param maxNames The maximum number of names kept
+     */
+    public ArticleNameIndex(int maxNames) {
+        this.maxNames = maxNames;
+    }
+
+    // =================
+    // === FUNCTIONS ===
+    // =================
+
+    /**
+     * Counts a new article
+     * @param name The name of the article
+     * @param id The id of the article
+     */
+    public synchronized void add(String name, long id) {
+        add(name, 1, id);
+    }
+
+    /**
+     * Counts articles with the same name (e.g. when the index is built from the database)
+     * @param name The name of the articles
+     * @param count The number of articles
+     * @param lastId The id of the last of the articles
+     */
+    public synchronized void add(String name, int count, long lastId) {
+        if(name == null || name.trim().isEmpty()){
+            return;
+        }
+        String key = toKey(name);
+        int index = lowerBound(key);
+        Entry entry;
+        if(index < entries.size() && entries.get(index).key.equals(key)){
+            entry = entries.get(index);
+        }
+        else{
+            entry = new Entry(name, key);
+            entries.add(index, entry);
+        }
+        entry.count += count;
+        // The last spelling of the name is suggested
+        if(lastId >= entry.lastId){
+            entry.lastId = lastId;
+            entry.name = name;
+        }
+        latestId = Math.max(latestId, lastId);
+        if(entries.size() > maxNames){
+            removeLowestRanked();
+        }
+    }
+
+    /**
+     * Returns the names starting with a prefix (ignoring case), the best ranked first
+     * @param prefix The first letters of the name
+     * @param limit The maximum number of names
+     * @return The names
+     */
+    public synchronized List<String> suggest(String prefix, int limit) {
+        String key = toKey(prefix.trim());
+        if(key.isEmpty()){
+            return Collections.emptyList();
+        }
+        // The names starting with the prefix follow each other in the sorted list
+        List<Entry> matches = new ArrayList<>();
+        for(int i = lowerBound(key); i < entries.size() && entries.get(i).key.startsWith(key); i++){
+            matches.add(entries.get(i));
+        }
+        Collections.sort(matches, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry entryA, Entry entryB) {
+                return Double.compare(getScore(entryB), getScore(entryA));
+            }
+        });
+        List<String> names = new ArrayList<>(Math.min(limit, matches.size()));
+        for(int i = 0; i < matches.size() && i < limit; i++){
+            names.add(matches.get(i).name);
+        }
+        return names;
+    }
+
+    /**
+     * Returns the number of names
+     * @return The number of names
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the rank of a name: its number of articles, counting less as other articles are added
+     * @param entry The name
+     * @return The score of the name, the higher the better
+     */
+    private double getScore(Entry entry) {
+        return entry.count / (1.0 + (double) (latestId - entry.lastId) / RECENCY_SPAN);
+    }
+
+    /**
+     * Removes the lowest ranked name
+     */
+    private void removeLowestRanked() {
+        int lowest = 0;
+        for(int i = 1; i < entries.size(); i++){
+            if(getScore(entries.get(i)) < getScore(entries.get(lowest))){
+                lowest = i;
+            }
+        }
+        entries.remove(lowest);
+    }
+
+    /**
+     * Returns the position of the first name with a key not lower than the given one
+     * @param key The key
+     * @return The position, the number of names if all the keys are lower
+     */
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = entries.size();
+        while(low < high){
+            int middle = (low + high) >>> 1;
+            if(entries.get(middle).key.compareTo(key) < 0){
+                low = middle + 1;
+            }
+            else{
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the key of a name
+     * @param name The name
+     * @return The lower case name
+     */
+    private static String toKey(String name) {
+        return name.toLowerCase(Locale.getDefault());
+    }
+}
@@ -0,0 +1,100 @@
+package be.oreel.masi.shoppinglist.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sparse ordering of the articles of a list
+ * Priorities are spread with gaps so that moving an article only changes its own priority,
+ * the list is only renumbered when there is no room left between two neighbours
+ */
+public final class ArticlePriorities {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    // Space left between two consecutive articles when (re)numbering a list
+    public static final int GAP = 1024;
+
+    // Keep away from the int limits so that there is always room for a new article at both ends
+    private static final int MIN_PRIORITY = Integer.MIN_VALUE / 2;
+    private static final int MAX_PRIORITY = Integer.MAX_VALUE / 2;
+
+    // ===================
+    // === CONSTRUCTOR ===
+    // ===================
+
+    /**
+     * Static class, no instances
+     */
+    private ArticlePriorities(){}
+
+    // =================
+    // === FUNCTIONS ===
+    // =================
+
+    /**
+     * Gives the article at the given position a priority between the ones of its neighbours
+     * @param articles The list, ordered by position
+     * @param position The position of the article to place
+     * @return False if there is no room left between the neighbours, the list then needs a rebalance
+     */
+    public static boolean place(List<Article> articles, int position){
+        Article previous = position > 0 ? articles.get(position - 1) : null;
+        Article next = position < articles.size() - 1 ? articles.get(position + 1) : null;
+        long priority;
+        if(previous == null && next == null){
+            priority = GAP;
+        }
+        else if(previous == null){
+            priority = (long) next.getPriority() - GAP;
+        }
+        else if(next == null){
+            priority = (long) previous.getPriority() + GAP;
+        }
+        else if((long) next.getPriority() - previous.getPriority() >= 2){
+            priority = ((long) previous.getPriority() + next.getPriority()) / 2;
+        }
+        else{
+            return false;
+        }
+        if(priority < MIN_PRIORITY || priority > MAX_PRIORITY){
+            return false;
+        }
+        articles.get(position).setPriority((int) priority);
+        return true;
+    }
+
+    /**
+     * Returns whether or not the priorities strictly increase along the list
+     * @param articles The list, ordered by position
+     * @return Whether or not the positions of the list match the priorities
+     */
+    public static boolean isOrdered(List<Article> articles){
+        for(int i = 1; i < articles.size(); i++){
+            if(articles.get(i - 1).getPriority() >= articles.get(i).getPriority()){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Renumbers the whole list with evenly spread priorities
+     * @param articles The list, ordered by position
+     * @return The articles of which the priority has changed
+     */
+    public static List<Article> rebalance(List<Article> articles){
+        List<Article> changed = new ArrayList<>();
+        for(int i = 0; i < articles.size(); i++){
+            Article article = articles.get(i);
+            int priority = (i + 1) * GAP;
+            if(article.getPriority() != priority){
+                article.setPriority(priority);
+                changed.add(article);
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,188 @@
+package be.oreel.masi.shoppinglist.model;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Sorts articles the way they read in the language of the user
+ * The names are compared ignoring case and accents (e.g. "Eclair" next to "eclair"), through collation keys
+ * built once per article instead of on every comparison
+ */
+public final class ArticleSorter {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    // The collator of the current locale, built again when the locale changes
+    private static Collator collator;
+    private static Locale collatorLocale;
+
+    // ===================
+    // === CONSTRUCTOR ===
+    // ===================
+
+    /**
+     * Static class, no instances
+     */
+    private ArticleSorter(){}
+
+    // =================
+    // === FUNCTIONS ===
+    // =================
+
+    /**
+     * Sorts articles, the articles which are equal for the mode are ordered by name
+     * @param articles The articles to sort
+     * @param mode What to sort the articles by
+     * @param descending Whether the order is reversed (the comparison is, no second pass is needed)
+     */
+    public static void sort(List<Article> articles, final SortMode mode, final boolean descending){
+        final Collator collator = getCollator();
+        // The measures are few and shared by many articles, one key per distinct measure
+        final Map<String, CollationKey> measureKeys = new HashMap<>();
+        if(mode == SortMode.MEASURE){
+            for(Article article : articles){
+                String measure = article.getMeasure() != null ? article.getMeasure() : "";
+                if(!measureKeys.containsKey(measure)){
+                    measureKeys.put(measure, collator.getCollationKey(measure));
+                }
+            }
+        }
+        Collections.sort(articles, new Comparator<Article>() {
+            @Override
+            public int compare(Article articleA, Article articleB) {
+                return descending ?
+                        compareAscending(articleB, articleA) :
+                        compareAscending(articleA, articleB);
+            }
+
+            /**
+             * Compares two articles in ascending order
+             * @param articleA The first article
+             * @param articleB The second article
+             * @return Negative if articleA comes first, positive if articleB comes first, 0 if equal
+             */
+            private int compareAscending(Article articleA, Article articleB) {
+                int result = 0;
+                switch (mode){
+                    case AMOUNT:
+                        result = compareInts(articleA.getAmount(), articleB.getAmount());
+                        break;
+                    case MEASURE:
+                        result = getMeasureKey(articleA).compareTo(getMeasureKey(articleB));
+                        break;
+                }
+                if(result == 0){
+                    result = articleA.getNameKey(collator).compareTo(articleB.getNameKey(collator));
+                }
+                return result;
+            }
+
+            /**
+             * Returns the key of the measure of an article
+             * @param article The article
+             * @return The collation key of the measure
+             */
+            private CollationKey getMeasureKey(Article article) {
+                return measureKeys.get(article.getMeasure() != null ? article.getMeasure() : "");
+            }
+        });
+    }
+
+    /**
+     * Sorts articles in a list order, like the database does when loading them
+     * @param articles The articles to sort
+     * @param order The list order
+     */
+    public static void sort(List<Article> articles, ListOrder order){
+        switch (order){
+            case NAME_ASC:
+                sort(articles, SortMode.NAME, false);
+                break;
+            case NAME_DESC:
+                sort(articles, SortMode.NAME, true);
+                break;
+            case CHECKED_LAST:
+                Collections.sort(articles, new Comparator<Article>() {
+                    @Override
+                    public int compare(Article articleA, Article articleB) {
+                        int result = compareInts(articleA.isStrikethrough() ? 1 : 0,
+                                articleB.isStrikethrough() ? 1 : 0);
+                        return result != 0 ? result : articleA.compareTo(articleB);
+                    }
+                });
+                break;
+            default:
+                // By priority
+                Collections.sort(articles);
+                break;
+        }
+    }
+
+    /**
+     * Compares two articles in a list order, like the database orders them (the id settles equal keys)
+     * @param articleA The first article
+     * @param articleB The second article
+     * @param order The list order
+     * @return Negative if articleA comes first, positive if articleB comes first, 0 if the same
+     */
+    public static int compare(Article articleA, Article articleB, ListOrder order){
+        int result;
+        switch (order){
+            case NAME_ASC:
+            case NAME_DESC:
+                Collator collator = getCollator();
+                result = articleA.getNameKey(collator).compareTo(articleB.getNameKey(collator));
+                break;
+            case CHECKED_LAST:
+                result = compareInts(articleA.isStrikethrough() ? 1 : 0,
+                        articleB.isStrikethrough() ? 1 : 0);
+                if(result == 0){
+                    result = articleA.compareTo(articleB);
+                }
+                break;
+            default:
+                // By priority
+                result = articleA.compareTo(articleB);
+                break;
+        }
+        if(result == 0){
+            result = articleA.getId() < articleB.getId() ? -1 :
+                    (articleA.getId() > articleB.getId() ? 1 : 0);
+        }
+        // The descending order reverses the id as well
+        return order == ListOrder.NAME_DESC ? -result : result;
+    }
+
+    /**
+     * Returns the collator of the current locale, ignoring case and accents
+     * @return The collator
+     */
+    private static synchronized Collator getCollator(){
+        Locale locale = Locale.getDefault();
+        if(collator == null || !locale.equals(collatorLocale)){
+            collator = Collator.getInstance(locale);
+            // Only the base letters are significant
+            collator.setStrength(Collator.PRIMARY);
+            collatorLocale = locale;
+        }
+        return collator;
+    }
+
+    /**
+     * Compares two ints
+     * @param a The first int
+     * @param b The second int
+     * @return Negative if a is smaller, positive if a is bigger, 0 if equal
+     */
+    private static int compareInts(int a, int b){
+        return a < b ? -1 : (a > b ? 1 : 0);
+    }
+}
@@ -0,0 +1,13 @@
+package be.oreel.masi.shoppinglist.model;
+
+/**
+ * The enumeration of the formats in which the articles can be copied or shared
+ */
+public enum ExportFormat {
+    // One article per line (e.g. "2kg Apples")
+    PLAIN,
+    // A header line, then one line per article with its name, amount, measure and checked state
+    CSV,
+    // All the articles on a single line, for messages
+    COMPACT
+}
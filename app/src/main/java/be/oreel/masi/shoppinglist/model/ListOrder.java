@@ -0,0 +1,13 @@
+package be.oreel.masi.shoppinglist.model;
+
+/**
+ * The enumeration of the orders in which the articles of a shop are shown, kept per shop
+ */
+public enum ListOrder {
+    // The order chosen by dragging the articles (their priority)
+    MANUAL,
+    NAME_ASC,
+    NAME_DESC,
+    // The articles still to buy first, each group in manual order
+    CHECKED_LAST
+}
@@ -0,0 +1,182 @@
+package be.oreel.masi.shoppinglist.model;
+
+import java.util.Arrays;
+
+/**
+ * A set of primitive longs (open addressing, no boxing)
+ * Adding, removing and looking up a value is done in constant time
+ */
+public class LongHashSet {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private boolean[] used;
+    private int size;
+
+    // ===================
+    // === CONSTRUCTOR ===
+    // ===================
+
+    /**
+     * The constructor
+     */
+    public LongHashSet() {
+        keys = new long[MIN_CAPACITY];
+        used = new boolean[MIN_CAPACITY];
+    }
+
+    // =================
+    // === FUNCTIONS ===
+    // =================
+
+    /**
+     * Adds a value to the set
+     * @param value The value to add
+     * @return False if the value was already in the set
+     */
+    public boolean add(long value) {
+        int slot = find(value);
+        if(used[slot]){
+            return false;
+        }
+        keys[slot] = value;
+        used[slot] = true;
+        size++;
+        // Keep at least half of the slots free so that the probes stay short
+        if(size * 2 > keys.length){
+            resize(keys.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * Removes a value from the set
+     * @param value The value to remove
+     * @return False if the value wasn't in the set
+     */
+    public boolean remove(long value) {
+        int slot = find(value);
+        if(!used[slot]){
+            return false;
+        }
+        used[slot] = false;
+        size--;
+        // Shift back the following values of the probe sequence, so that they can still be found
+        int mask = keys.length - 1;
+        int free = slot;
+        int next = (slot + 1) & mask;
+        while(used[next]){
+            int home = hash(keys[next], mask);
+            // Move the value if the free slot lies between its home slot and its current slot
+            boolean between = free <= next ?
+                    (home <= free || home > next) :
+                    (home <= free && home > next);
+            if(between){
+                keys[free] = keys[next];
+                used[free] = true;
+                used[next] = false;
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether or not the value is in the set
+     * @param value The value to look for
+     * @return Whether or not the value is in the set
+     */
+    public boolean contains(long value) {
+        return used[find(value)];
+    }
+
+    /**
+     * Returns the number of values in the set
+     * @return The number of values in the set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether or not the set is empty
+     * @return Whether or not the set is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all the values of the set
+     */
+    public void clear() {
+        if(size > 0){
+            Arrays.fill(used, false);
+            size = 0;
+        }
+    }
+
+    /**
+     * Returns all the values of the set, in no particular order
+     * @return The values of the set
+     */
+    public long[] toArray() {
+        long[] values = new long[size];
+        int index = 0;
+        for(int i = 0; i < keys.length; i++){
+            if(used[i]){
+                values[index++] = keys[i];
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns the slot of the value, or the free slot where it would be added
+     * @param value The value
+     * @return The slot index
+     */
+    private int find(long value) {
+        int mask = keys.length - 1;
+        int slot = hash(value, mask);
+        while(used[slot] && keys[slot] != value){
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Grows the table and adds back all the values
+     * @param capacity The new capacity, a power of two
+     */
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        keys = new long[capacity];
+        used = new boolean[capacity];
+        for(int i = 0; i < oldKeys.length; i++){
+            if(oldUsed[i]){
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                used[slot] = true;
+            }
+        }
+    }
+
+    /**
+     * Spreads the bits of the value over the table
+     * @param value The value
+     * @param mask The table size minus one
+     * @return The home slot of the value
+     */
+    private static int hash(long value, int mask) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,48 @@
+package be.oreel.masi.shoppinglist.model;
+
+/**
+ * An article found by a search, with the shop in which it is
+ */
+public class SearchResult {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    private final Article article;
+    private final Shop shop;
+
+    // ===================
+    // === CONSTRUCTOR ===
+    // ===================
+
+    /**
+     * The constructor
+     * @param article The found article
+     * @param shop The shop of the article
+     */
+    public SearchResult(Article article, Shop shop){
+        this.article = article;
+        this.shop = shop;
+    }
+
+    // ===============
+    // === GETTERS ===
+    // ===============
+
+    /**
+     * Returns the found article
+     * @return The found article
+     */
+    public Article getArticle() {
+        return article;
+    }
+
+    /**
+     * Returns the shop of the article
+     * @return The shop of the article
+     */
+    public Shop getShop() {
+        return shop;
+    }
+}
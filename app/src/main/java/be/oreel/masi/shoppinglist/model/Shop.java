@@ -16,6 +16,7 @@ public class Shop implements Comparable<Shop>, Serializable {
     private long id;
     private String name;
     private @DrawableRes int logoRes;
+    private ListOrder listOrder = ListOrder.MANUAL;
 
     // ===================
     // === CONSTRUCTOR ===
@@ -110,4 +111,20 @@ public class Shop implements Comparable<Shop>, Serializable {
     public void setLogoRes(int logoRes) {
         this.logoRes = logoRes;
     }
+
+    /**
+     * Returns the order in which the articles of the shop are shown
+     * @return The order of the articles
+     */
+    public ListOrder getListOrder() {
+        return listOrder;
+    }
+
+    /**
+     * Sets the order in which the articles of the shop are shown
+     * @param listOrder The order to be set
+     */
+    public void setListOrder(ListOrder listOrder) {
+        this.listOrder = listOrder;
+    }
 }
@@ -0,0 +1,10 @@
+package be.oreel.masi.shoppinglist.model;
+
+/**
+ * The enumeration of the different orders of the articles of a shop
+ */
+public enum SortMode {
+    NAME,
+    AMOUNT,
+    MEASURE
+}
@@ -0,0 +1,46 @@
+package be.oreel.masi.shoppinglist.db;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the full-text queries built from the text searched by the user
+ */
+public class ArticleSearchQueryTest {
+
+    // =============
+    // === TESTS ===
+    // =============
+
+    @Test
+    public void eachWordIsPrefix() {
+        assertEquals("whole* mi*", ArticleDataSource.toMatchQuery("whole mi"));
+        assertEquals("milk*", ArticleDataSource.toMatchQuery("  milk  "));
+        assertEquals("2kg* rice*", ArticleDataSource.toMatchQuery("2kg rice"));
+    }
+
+    @Test
+    public void asciiLettersAreLowerCase() {
+        // Upper case operators are read as words
+        assertEquals("milk* or* bread*", ArticleDataSource.toMatchQuery("Milk OR BREAD"));
+        assertEquals("milk* not* near*", ArticleDataSource.toMatchQuery("milk NOT NEAR"));
+        // The index only folds the case of the ascii letters, the others are kept as typed
+        assertEquals("cr\u00e8me*", ArticleDataSource.toMatchQuery("Cr\u00e8me"));
+        assertEquals("cr\u00c8me*", ArticleDataSource.toMatchQuery("CR\u00c8ME"));
+    }
+
+    @Test
+    public void querySyntaxIsDropped() {
+        assertEquals("milk* bread*", ArticleDataSource.toMatchQuery("\"milk\" -bread*"));
+        assertEquals("name* milk*", ArticleDataSource.toMatchQuery("name:milk"));
+        assertEquals("oat* and* milk*", ArticleDataSource.toMatchQuery("(oat) AND-milk"));
+    }
+
+    @Test
+    public void noWordsGiveEmptyQuery() {
+        assertEquals("", ArticleDataSource.toMatchQuery(""));
+        assertEquals("", ArticleDataSource.toMatchQuery("   "));
+        assertEquals("", ArticleDataSource.toMatchQuery("*\"-()"));
+    }
+}
@@ -0,0 +1,37 @@
+package be.oreel.masi.shoppinglist.db;
+
+import org.junit.Test;
+
+import be.oreel.masi.shoppinglist.model.ListOrder;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the reading of the list order stored with a shop
+ */
+public class ShopListOrderTest {
+
+    // =============
+    // === TESTS ===
+    // =============
+
+    @Test
+    public void storedOrdersAreRead() {
+        for(ListOrder order : ListOrder.values()){
+            assertEquals(order, ShopDataSource.toListOrder(order.name()));
+        }
+    }
+
+    @Test
+    public void missingOrderIsManual() {
+        assertEquals(ListOrder.MANUAL, ShopDataSource.toListOrder(null));
+    }
+
+    @Test
+    public void unknownOrderIsManual() {
+        // e.g. an order of a newer version of the app, or one which was removed since
+        assertEquals(ListOrder.MANUAL, ShopDataSource.toListOrder("CHECKED"));
+        assertEquals(ListOrder.MANUAL, ShopDataSource.toListOrder("name_asc"));
+        assertEquals(ListOrder.MANUAL, ShopDataSource.toListOrder(""));
+    }
+}
@@ -0,0 +1,109 @@
+package be.oreel.masi.shoppinglist.model;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the text of the articles in each export format
+ */
+public class ArticleExporterTest {
+
+    // =============
+    // === TESTS ===
+    // =============
+
+    @Test
+    public void csvWritesHeaderAndOneRowPerArticle() {
+        List<Article> articles = Arrays.asList(
+                createArticle("Apples", 2, "kg", false),
+                createArticle("Bread", 1, null, true));
+        assertEquals("name,amount,measure,checked\n" +
+                "Apples,2,kg,0\n" +
+                "Bread,1,,1\n",
+                ArticleExporter.export(articles, ExportFormat.CSV));
+    }
+
+    @Test
+    public void csvQuotesSeparatorsQuotesAndLineBreaks() {
+        List<Article> articles = Arrays.asList(
+                createArticle("Salt, coarse", 1, null, false),
+                createArticle("\"Fresh\" milk", 1, "l", false),
+                createArticle("Eggs\nlarge", 12, null, false),
+                createArticle("Flour", 1, "\"bag\"", false));
+        assertEquals("name,amount,measure,checked\n" +
+                "\"Salt, coarse\",1,,0\n" +
+                "\"\"\"Fresh\"\" milk\",1,l,0\n" +
+                "\"Eggs\nlarge\",12,,0\n" +
+                "Flour,1,\"\"\"bag\"\"\",0\n",
+                ArticleExporter.export(articles, ExportFormat.CSV));
+    }
+
+    @Test
+    public void csvOfEmptyListIsHeaderOnly() {
+        assertEquals("name,amount,measure,checked\n",
+                ArticleExporter.export(Collections.<Article>emptyList(), ExportFormat.CSV));
+    }
+
+    @Test
+    public void compactSeparatesArticlesOnOneLine() {
+        List<Article> articles = Arrays.asList(
+                createArticle("Apples", 2, "kg", false),
+                createArticle("Bread", 1, null, true),
+                createArticle("Salt, coarse", 1, null, false));
+        assertEquals("2kg Apples, 1 Bread, 1 Salt, coarse",
+                ArticleExporter.export(articles, ExportFormat.COMPACT));
+        assertEquals("1 Bread", ArticleExporter.export(articles.subList(1, 2),
+                ExportFormat.COMPACT));
+    }
+
+    @Test
+    public void plainWritesOneLinePerArticle() {
+        List<Article> articles = Arrays.asList(
+                createArticle("Apples", 2, "kg", false),
+                createArticle("\"Fresh\" milk", 1, null, false));
+        assertEquals("2kg Apples\n1 \"Fresh\" milk\n",
+                ArticleExporter.export(articles, ExportFormat.PLAIN));
+    }
+
+    @Test
+    public void writeStreamsSameText() throws IOException {
+        List<Article> articles = Arrays.asList(
+                createArticle("Apples", 2, "kg", false),
+                createArticle("Salt, coarse", 1, null, true));
+        for(ExportFormat format : ExportFormat.values()){
+            StringWriter writer = new StringWriter();
+            ArticleExporter.write(articles, format, writer);
+            assertEquals(format.name(), ArticleExporter.export(articles, format),
+                    writer.toString());
+        }
+    }
+
+    // ========================
+    // === HELPER FUNCTIONS ===
+    // ========================
+
+    /**
+     * Creates an article
+     * @param name The name of the article
+     * @param amount The amount of the article
+     * @param measure The measure of the amount, null if none
+     * @param checked Whether or not the article is struck through
+     * @return The article
+     */
+    private static Article createArticle(String name, int amount, String measure,
+                                         boolean checked) {
+        Article article = new Article();
+        article.setName(name);
+        article.setAmount(amount);
+        article.setMeasure(measure);
+        article.setStrikethrough(checked);
+        return article;
+    }
+}
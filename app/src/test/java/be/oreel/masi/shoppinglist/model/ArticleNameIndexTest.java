@@ -0,0 +1,105 @@
+package be.oreel.masi.shoppinglist.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the suggestions of the names: the prefix match, the ranking and the bounds
+ */
+public class ArticleNameIndexTest {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    private static final int MAX_NAMES = 100;
+
+    // =============
+    // === TESTS ===
+    // =============
+
+    @Test
+    public void suggestsNamesStartingWithPrefix() {
+        ArticleNameIndex index = new ArticleNameIndex(MAX_NAMES);
+        index.add("Milk", 1);
+        index.add("Mint", 2);
+        index.add("Bread", 3);
+        index.add("Almond milk", 4);
+        assertEquals(Arrays.asList("Mint", "Milk"), index.suggest("mi", 10));
+        assertEquals(Arrays.asList("Mint", "Milk"), index.suggest("  MI ", 10));
+        assertEquals(Collections.singletonList("Milk"), index.suggest("milk", 10));
+        assertEquals(Collections.singletonList("Bread"), index.suggest("b", 10));
+        assertEquals(Collections.<String>emptyList(), index.suggest("x", 10));
+        assertEquals(Collections.<String>emptyList(), index.suggest(" ", 10));
+    }
+
+    @Test
+    public void ranksFrequentNamesFirst() {
+        ArticleNameIndex index = new ArticleNameIndex(MAX_NAMES);
+        index.add("Mint", 1);
+        index.add("Milk", 2);
+        index.add("Milk", 3);
+        assertEquals(Arrays.asList("Milk", "Mint"), index.suggest("mi", 10));
+    }
+
+    @Test
+    public void recentNamesOutrankOldFrequentOnes() {
+        ArticleNameIndex index = new ArticleNameIndex(MAX_NAMES);
+        // Added three times long ago: 3 / (1 + 490 / 100) is about 0.5
+        index.add("Milk", 3, 10);
+        // Added once, just now: 1 / (1 + 0)
+        index.add("Mint", 1, 500);
+        assertEquals(Arrays.asList("Mint", "Milk"), index.suggest("mi", 10));
+        // Added again, now both recent and frequent
+        index.add("Milk", 501);
+        assertEquals(Arrays.asList("Milk", "Mint"), index.suggest("mi", 10));
+    }
+
+    @Test
+    public void suggestsAtMostLimitNames() {
+        ArticleNameIndex index = new ArticleNameIndex(MAX_NAMES);
+        for(int i = 0; i < 10; i++){
+            // The later names are added more often
+            index.add("Tea " + i, i + 1, i + 1);
+        }
+        assertEquals(Arrays.asList("Tea 9", "Tea 8", "Tea 7"), index.suggest("tea", 3));
+        assertEquals(10, index.suggest("tea", 20).size());
+        assertEquals(Collections.<String>emptyList(), index.suggest("tea", 0));
+    }
+
+    @Test
+    public void suggestsLastSpelling() {
+        ArticleNameIndex index = new ArticleNameIndex(MAX_NAMES);
+        index.add("milk", 1);
+        index.add("Milk", 2);
+        // An older spelling, e.g. counted while the index is built, does not replace it
+        index.add("MILK", 1, 1);
+        assertEquals(1, index.size());
+        assertEquals(Collections.singletonList("Milk"), index.suggest("m", 10));
+    }
+
+    @Test
+    public void ignoresBlankNames() {
+        ArticleNameIndex index = new ArticleNameIndex(MAX_NAMES);
+        index.add(null, 1);
+        index.add("", 2);
+        index.add("   ", 3);
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void removesLowestRankedNameWhenFull() {
+        ArticleNameIndex index = new ArticleNameIndex(2);
+        index.add("Apples", 5, 1);
+        index.add("Bread", 1, 2);
+        index.add("Cheese", 1, 3);
+        assertEquals(2, index.size());
+        assertEquals(Collections.singletonList("Apples"), index.suggest("a", 10));
+        assertEquals(Collections.<String>emptyList(), index.suggest("b", 10));
+        assertEquals(Collections.singletonList("Cheese"), index.suggest("c", 10));
+    }
+}
@@ -0,0 +1,139 @@
+package be.oreel.masi.shoppinglist.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the placing of a moved article between its neighbours and the renumbering of a list
+ */
+public class ArticlePrioritiesTest {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    // The priority of the placed article before it is placed
+    private static final int UNPLACED = 7;
+
+    // =============
+    // === TESTS ===
+    // =============
+
+    @Test
+    public void placesBetweenNeighbours() {
+        List<Article> articles = createList(1024, UNPLACED, 2048);
+        assertTrue(ArticlePriorities.place(articles, 1));
+        assertEquals(1536, articles.get(1).getPriority());
+        assertTrue(ArticlePriorities.isOrdered(articles));
+        // The smallest gap with room left
+        articles = createList(10, UNPLACED, 12);
+        assertTrue(ArticlePriorities.place(articles, 1));
+        assertEquals(11, articles.get(1).getPriority());
+    }
+
+    @Test
+    public void placesAtBothEnds() {
+        List<Article> articles = createList(UNPLACED, 1024, 2048);
+        assertTrue(ArticlePriorities.place(articles, 0));
+        assertEquals(0, articles.get(0).getPriority());
+        articles = createList(1024, 2048, UNPLACED);
+        assertTrue(ArticlePriorities.place(articles, 2));
+        assertEquals(2048 + ArticlePriorities.GAP, articles.get(2).getPriority());
+        // Alone in the list
+        articles = createList(UNPLACED);
+        assertTrue(ArticlePriorities.place(articles, 0));
+        assertEquals(ArticlePriorities.GAP, articles.get(0).getPriority());
+    }
+
+    @Test
+    public void placeFailsWhenGapIsExhausted() {
+        List<Article> articles = createList(1024, UNPLACED, 1025);
+        assertFalse(ArticlePriorities.place(articles, 1));
+        // Left as it was, for the rebalance
+        assertEquals(UNPLACED, articles.get(1).getPriority());
+        assertFalse(ArticlePriorities.isOrdered(articles));
+        List<Article> changed = ArticlePriorities.rebalance(articles);
+        assertEquals(Arrays.asList(1024, 2048, 3072), getPriorities(articles));
+        // The first article already had its priority
+        assertEquals(Arrays.asList(articles.get(1), articles.get(2)), changed);
+        assertTrue(ArticlePriorities.isOrdered(articles));
+    }
+
+    @Test
+    public void placeFailsNearIntLimits() {
+        List<Article> articles = createList(Integer.MAX_VALUE / 2, UNPLACED);
+        assertFalse(ArticlePriorities.place(articles, 1));
+        articles = createList(UNPLACED, Integer.MIN_VALUE / 2);
+        assertFalse(ArticlePriorities.place(articles, 0));
+        assertEquals(UNPLACED, articles.get(0).getPriority());
+    }
+
+    @Test
+    public void repeatedMovesEventuallyNeedRebalance() {
+        List<Article> articles = createList(1024, 2048, 3072);
+        // Keeps moving the last article between the first two
+        int moves = 0;
+        while(true){
+            articles.add(1, articles.remove(articles.size() - 1));
+            if(!ArticlePriorities.place(articles, 1)){
+                break;
+            }
+            assertTrue(ArticlePriorities.isOrdered(articles));
+            moves++;
+        }
+        // Each move halves the room left between the first two articles, from 1024 down to 1
+        assertEquals(10, moves);
+        ArticlePriorities.rebalance(articles);
+        assertTrue(ArticlePriorities.isOrdered(articles));
+        assertTrue(ArticlePriorities.place(articles, 1));
+    }
+
+    @Test
+    public void isOrderedNeedsStrictlyIncreasingPriorities() {
+        assertTrue(ArticlePriorities.isOrdered(createList()));
+        assertTrue(ArticlePriorities.isOrdered(createList(-5, 0, 5)));
+        assertFalse(ArticlePriorities.isOrdered(createList(1, 1)));
+        assertFalse(ArticlePriorities.isOrdered(createList(2, 1)));
+    }
+
+    // ========================
+    // === HELPER FUNCTIONS ===
+    // ========================
+
+    /**
+     * Creates a list of articles
+     * @param priorities The priorities of the articles, in the order of the list
+     * @return The articles
+     */
+    private static List<Article> createList(int... priorities) {
+        List<Article> articles = new ArrayList<>(priorities.length);
+        for(int i = 0; i < priorities.length; i++){
+            Article article = new Article();
+            article.setId(i + 1);
+            article.setName("Article " + i);
+            article.setPriority(priorities[i]);
+            articles.add(article);
+        }
+        return articles;
+    }
+
+    /**
+     * Returns the priorities of a list of articles
+     * @param articles The articles
+     * @return The priorities, in the order of the list
+     */
+    private static List<Integer> getPriorities(List<Article> articles) {
+        List<Integer> priorities = new ArrayList<>(articles.size());
+        for(Article article : articles){
+            priorities.add(article.getPriority());
+        }
+        return priorities;
+    }
+}
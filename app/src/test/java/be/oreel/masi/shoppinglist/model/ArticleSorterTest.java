@@ -0,0 +1,186 @@
+package be.oreel.masi.shoppinglist.model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the sort modes, the list orders and the comparison of two articles in a list order
+ */
+public class ArticleSorterTest {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    private Locale defaultLocale;
+
+    // =============
+    // === SETUP ===
+    // =============
+
+    /**
+     * Sorts in French, the accents are significant to a plain string comparison
+     */
+    @Before
+    public void setLocale() {
+        defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.FRANCE);
+    }
+
+    /**
+     * Restores the locale
+     */
+    @After
+    public void restoreLocale() {
+        Locale.setDefault(defaultLocale);
+    }
+
+    // =============
+    // === TESTS ===
+    // =============
+
+    @Test
+    public void nameIgnoresCaseAndAccents() {
+        List<Article> articles = Arrays.asList(
+                createArticle(1, "\u00e9clair", 1, null),
+                createArticle(2, "Banane", 1, null),
+                createArticle(3, "Eclair", 1, null),
+                createArticle(4, "abricot", 1, null),
+                createArticle(5, "\u00c9pinards", 1, null));
+        ArticleSorter.sort(articles, SortMode.NAME, false);
+        // The two eclairs are equal, they keep their order
+        assertEquals(Arrays.asList("abricot", "Banane", "\u00e9clair", "Eclair", "\u00c9pinards"),
+                getNames(articles));
+        ArticleSorter.sort(articles, SortMode.NAME, true);
+        assertEquals(Arrays.asList("\u00c9pinards", "\u00e9clair", "Eclair", "Banane", "abricot"),
+                getNames(articles));
+    }
+
+    @Test
+    public void renamedArticleIsSortedByNewName() {
+        Article article = createArticle(1, "Abricot", 1, null);
+        List<Article> articles = Arrays.asList(article, createArticle(2, "Banane", 1, null));
+        ArticleSorter.sort(articles, SortMode.NAME, false);
+        // The collation key of the old name is not reused
+        article.setName("Cerise");
+        ArticleSorter.sort(articles, SortMode.NAME, false);
+        assertEquals(Arrays.asList("Banane", "Cerise"), getNames(articles));
+    }
+
+    @Test
+    public void amountThenName() {
+        List<Article> articles = Arrays.asList(
+                createArticle(1, "Pommes", 3, "kg"),
+                createArticle(2, "Lait", 1, "l"),
+                createArticle(3, "Beurre", 3, null),
+                createArticle(4, "Oeufs", 12, null));
+        ArticleSorter.sort(articles, SortMode.AMOUNT, false);
+        assertEquals(Arrays.asList("Lait", "Beurre", "Pommes", "Oeufs"), getNames(articles));
+        ArticleSorter.sort(articles, SortMode.AMOUNT, true);
+        assertEquals(Arrays.asList("Oeufs", "Pommes", "Beurre", "Lait"), getNames(articles));
+    }
+
+    @Test
+    public void measureThenNameWithoutMeasureFirst() {
+        List<Article> articles = Arrays.asList(
+                createArticle(1, "Pommes", 3, "kg"),
+                createArticle(2, "Oeufs", 12, null),
+                createArticle(3, "Lait", 1, "l"),
+                createArticle(4, "Farine", 1, "KG"),
+                createArticle(5, "Beurre", 1, null));
+        ArticleSorter.sort(articles, SortMode.MEASURE, false);
+        assertEquals(Arrays.asList("Beurre", "Oeufs", "Farine", "Pommes", "Lait"),
+                getNames(articles));
+    }
+
+    @Test
+    public void checkedLastKeepsPriorityInEachGroup() {
+        List<Article> articles = new ArrayList<>(Arrays.asList(
+                createArticle(1, "A", 1, null, true, 1024),
+                createArticle(2, "B", 1, null, false, 3072),
+                createArticle(3, "C", 1, null, true, 512),
+                createArticle(4, "D", 1, null, false, 2048)));
+        ArticleSorter.sort(articles, ListOrder.CHECKED_LAST);
+        assertEquals(Arrays.asList("D", "B", "C", "A"), getNames(articles));
+        ArticleSorter.sort(articles, ListOrder.MANUAL);
+        assertEquals(Arrays.asList("C", "A", "D", "B"), getNames(articles));
+    }
+
+    @Test
+    public void compareMatchesSortAndSettlesEqualKeysById() {
+        Article first = createArticle(1, "Eclair", 1, null, false, 1024);
+        Article second = createArticle(2, "\u00e9clair", 1, null, false, 1024);
+        Article third = createArticle(3, "Banane", 1, null, true, 512);
+        for(ListOrder order : ListOrder.values()){
+            // Equal keys, the id decides (reversed as well in a descending order)
+            int sign = order == ListOrder.NAME_DESC ? -1 : 1;
+            assertTrue(order.name(), sign * ArticleSorter.compare(first, second, order) < 0);
+            assertTrue(order.name(), sign * ArticleSorter.compare(second, first, order) > 0);
+            assertEquals(order.name(), 0, ArticleSorter.compare(first, first, order));
+        }
+        assertTrue(ArticleSorter.compare(third, first, ListOrder.MANUAL) < 0);
+        assertTrue(ArticleSorter.compare(third, first, ListOrder.NAME_ASC) < 0);
+        assertTrue(ArticleSorter.compare(third, first, ListOrder.NAME_DESC) > 0);
+        assertTrue(ArticleSorter.compare(third, first, ListOrder.CHECKED_LAST) > 0);
+    }
+
+    // ========================
+    // === HELPER FUNCTIONS ===
+    // ========================
+
+    /**
+     * Creates an unchecked article
+     * @param id The id of the article
+     * @param name The name of the article
+     * @param amount The amount of the article
+     * @param measure The measure of the amount, null if none
+     * @return The article
+     */
+    private static Article createArticle(long id, String name, int amount, String measure) {
+        return createArticle(id, name, amount, measure, false, 0);
+    }
+
+    /**
+     * Creates an article
+     * @param id The id of the article
+     * @param name The name of the article
+     * @param amount The amount of the article
+     * @param measure The measure of the amount, null if none
+     * @param checked Whether or not the article is struck through
+     * @param priority The priority of the article
+     * @return The article
+     */
+    private static Article createArticle(long id, String name, int amount, String measure,
+                                         boolean checked, int priority) {
+        Article article = new Article();
+        article.setId(id);
+        article.setName(name);
+        article.setAmount(amount);
+        article.setMeasure(measure);
+        article.setStrikethrough(checked);
+        article.setPriority(priority);
+        return article;
+    }
+
+    /**
+     * Returns the names of articles
+     * @param articles The articles
+     * @return The names, in the order of the list
+     */
+    private static List<String> getNames(List<Article> articles) {
+        List<String> names = new ArrayList<>(articles.size());
+        for(Article article : articles){
+            names.add(article.getName());
+        }
+        return names;
+    }
+}
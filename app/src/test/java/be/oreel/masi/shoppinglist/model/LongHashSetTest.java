@@ -0,0 +1,165 @@
+package be.oreel.masi.shoppinglist.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the set of longs, in particular the removals inside a probe sequence and the growth
+ */
+public class LongHashSetTest {
+
+    // =================
+    // === VARIABLES ===
+    // =================
+
+    // The first capacity of the set
+    private static final int CAPACITY = 16;
+
+    // =============
+    // === TESTS ===
+    // =============
+
+    @Test
+    public void addsContainsAndRemoves() {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.isEmpty());
+        assertTrue(set.add(42));
+        assertFalse(set.add(42));
+        assertTrue(set.contains(42));
+        assertFalse(set.contains(43));
+        assertEquals(1, set.size());
+        assertTrue(set.remove(42));
+        assertFalse(set.remove(42));
+        assertFalse(set.contains(42));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void removeKeepsTheRestOfTheChainReachable() {
+        // All in the last slot, their probe sequence wraps around to the start of the table
+        long[] values = getCollidingValues(CAPACITY - 1, 6);
+        LongHashSet set = new LongHashSet();
+        for(long value : values){
+            set.add(value);
+        }
+        // Remove from the head, the middle and the tail of the chain
+        for(int removed : new int[]{0, 3, 5}){
+            assertTrue(set.remove(values[removed]));
+            for(int i = 0; i < values.length; i++){
+                assertEquals("value " + i + " after removing " + removed,
+                        i != removed, set.contains(values[i]));
+            }
+            // Added back at the end of the chain
+            assertTrue(set.add(values[removed]));
+            assertEquals(values.length, set.size());
+            for(long value : values){
+                assertTrue(set.contains(value));
+            }
+        }
+    }
+
+    @Test
+    public void removeAcrossInterleavedChains() {
+        // Two chains sharing the same slots, one starting a slot later than the other
+        long[] first = getCollidingValues(CAPACITY - 2, 3);
+        long[] second = getCollidingValues(CAPACITY - 1, 3);
+        LongHashSet set = new LongHashSet();
+        for(int i = 0; i < 3; i++){
+            set.add(first[i]);
+            set.add(second[i]);
+        }
+        for(long value : first){
+            assertTrue(set.remove(value));
+        }
+        for(long value : second){
+            assertTrue(set.contains(value));
+        }
+        for(long value : first){
+            assertFalse(set.contains(value));
+            assertTrue(set.add(value));
+        }
+        assertEquals(6, set.size());
+    }
+
+    @Test
+    public void matchesHashSetOnRandomOperations() {
+        // Few distinct values, so that the chains are long and values come and go often
+        Random random = new Random(7);
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        for(int i = 0; i < 20000; i++){
+            long value = random.nextInt(40);
+            if(random.nextBoolean()){
+                assertEquals(expected.add(value), set.add(value));
+            }
+            else{
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        for(long value = 0; value < 40; value++){
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+
+    @Test
+    public void growsAndKeepsAllValues() {
+        LongHashSet set = new LongHashSet();
+        int count = 10000;
+        for(int i = 0; i < count; i++){
+            // Spread over a wide range, negative values included
+            assertTrue(set.add(i * 7919L - 5000000L));
+        }
+        assertEquals(count, set.size());
+        long[] values = set.toArray();
+        Arrays.sort(values);
+        long[] expected = new long[count];
+        for(int i = 0; i < count; i++){
+            expected[i] = i * 7919L - 5000000L;
+        }
+        assertArrayEquals(expected, values);
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(expected[0]));
+    }
+
+    // ========================
+    // === HELPER FUNCTIONS ===
+    // ========================
+
+    /**
+     * Returns values with the same home slot in a set of the first capacity
+     * @param slot The home slot
+     * @param count The number of values, few enough for the set not to grow
+     * @return The values
+     */
+    private static long[] getCollidingValues(int slot, int count) {
+        long[] values = new long[count];
+        int found = 0;
+        for(long value = 1; found < count; value++){
+            if(getHomeSlot(value) == slot){
+                values[found++] = value;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns the home slot of a value in a set of the first capacity, like LongHashSet.hash
+     * @param value The value
+     * @return The home slot
+     */
+    private static int getHomeSlot(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (CAPACITY - 1);
+    }
+}